@@ -0,0 +1,61 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Compares A* with the great-circle heuristic against Dijkstra's algorithm
+ * (A* with the zero heuristic) on random node pairs of a graph with a
+ * coordinates file. For each pair both must report the same length, and
+ * the A* path must add up to it. Prints the mean number of frontier polls
+ * and the mean time per query of each.
+ * Usage: java AStarBenchmark basic|db1b FILE COORDINATES [pairs] */
+public class AStarBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Graph graph = ShortestPaths.parseGraph(args[0], args[1]);
+        Heuristic greatCircle = new GreatCircleHeuristic(new File(args[2]));
+        Heuristic zero = new ZeroHeuristic();
+        int pairs = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        graph.report();
+        ArrayList<Node> nodes = new ArrayList<Node>(graph.getNodes().values());
+        Random rnd = new Random(42);
+
+        ShortestPaths dijkstra = new ShortestPaths();
+        ShortestPaths astar = new ShortestPaths();
+        long dijkstraPolls = 0;
+        long astarPolls = 0;
+        long dijkstraTime = 0;
+        long astarTime = 0;
+        int failures = 0;
+        for (int q = 0; q < pairs; q++) {
+            Node s = nodes.get(rnd.nextInt(nodes.size()));
+            Node t = nodes.get(rnd.nextInt(nodes.size()));
+            long start = System.nanoTime();
+            dijkstra.compute(s, t, zero);
+            long mid = System.nanoTime();
+            astar.compute(s, t, greatCircle);
+            long end = System.nanoTime();
+            dijkstraTime += mid - start;
+            astarTime += end - mid;
+            dijkstraPolls += dijkstra.pollCount();
+            astarPolls += astar.pollCount();
+
+            double expected = dijkstra.shortestPathLength(t);
+            double length = astar.shortestPathLength(t);
+            double walked = BidirectionalBenchmark.pathLength(
+                    astar.shortestPath(t), s, t);
+            if (!BidirectionalBenchmark.close(expected, length)
+                    || !BidirectionalBenchmark.close(length, walked)) {
+                failures++;
+                System.out.println("mismatch " + s + " -> " + t + ": "
+                        + expected + " vs " + length);
+            }
+        }
+        System.out.println("Dijkstra:          " + dijkstraPolls / pairs
+                + " polls, " + dijkstraTime / 1e3 / pairs + " us per query");
+        System.out.println("A* (great circle): " + astarPolls / pairs
+                + " polls, " + astarTime / 1e3 / pairs + " us per query");
+        System.out.println(failures == 0 ? "all " + pairs + " pairs agree"
+                : failures + " pairs differ");
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Random;
+
+/** Compares BidirectionalShortestPaths with the one-way early-exit search
+ * ShortestPaths.compute(origin, destination) on random node pairs of a
+ * graph file. For each pair both must report the same length, and the
+ * bidirectional path must start at the origin, end at the destination and
+ * add up to that length. Prints the mean number of settled nodes and the
+ * mean time per query of each.
+ * Usage: java BidirectionalBenchmark basic|db1b FILE [pairs] */
+public class BidirectionalBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Graph graph = ShortestPaths.parseGraph(args[0], args[1]);
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        graph.report();
+        ArrayList<Node> nodes = new ArrayList<Node>(graph.getNodes().values());
+        Random rnd = new Random(42);
+
+        ShortestPaths sp = new ShortestPaths();
+        BidirectionalShortestPaths bsp = new BidirectionalShortestPaths(graph);
+        long oneWaySettled = 0;
+        long biSettled = 0;
+        long oneWayTime = 0;
+        long biTime = 0;
+        int failures = 0;
+        for (int q = 0; q < pairs; q++) {
+            Node s = nodes.get(rnd.nextInt(nodes.size()));
+            Node t = nodes.get(rnd.nextInt(nodes.size()));
+            long start = System.nanoTime();
+            sp.compute(s, t);
+            long mid = System.nanoTime();
+            bsp.compute(s, t);
+            long end = System.nanoTime();
+            oneWayTime += mid - start;
+            biTime += end - mid;
+            oneWaySettled += sp.settledCount();
+            biSettled += bsp.settledCount();
+
+            double expected = sp.shortestPathLength(t);
+            double length = bsp.shortestPathLength();
+            if (!close(expected, length)
+                    || !close(length, pathLength(bsp.shortestPath(), s, t))) {
+                failures++;
+                System.out.println("mismatch " + s + " -> " + t + ": "
+                        + expected + " vs " + length);
+            }
+        }
+        System.out.println("one-way:       " + oneWaySettled / pairs
+                + " settled, " + oneWayTime / 1e3 / pairs + " us per query");
+        System.out.println("bidirectional: " + biSettled / pairs
+                + " settled, " + biTime / 1e3 / pairs + " us per query");
+        System.out.println(failures == 0 ? "all " + pairs + " pairs agree"
+                : failures + " pairs differ");
+    }
+
+    /* Return the length of path from s to t, -1 if it is empty, or NaN if
+     * it is not a path from s to t in the graph. */
+    static double pathLength(LinkedList<Node> path, Node s, Node t) {
+        if (path.isEmpty()) {
+            return -1;
+        }
+        if (!path.getFirst().equals(s) || !path.getLast().equals(t)) {
+            return Double.NaN;
+        }
+        double length = 0;
+        Node prev = null;
+        for (Node v : path) {
+            if (prev != null) {
+                Double w = prev.getNeighbors().get(v);
+                if (w == null) {
+                    return Double.NaN;
+                }
+                length += w;
+            }
+            prev = v;
+        }
+        return length;
+    }
+
+    /* Return true if a and b are equal up to rounding from adding the same
+     * weights in a different order. */
+    static boolean close(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.abs(a));
+    }
+}
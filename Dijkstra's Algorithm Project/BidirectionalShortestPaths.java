@@ -0,0 +1,139 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+/** Single-pair shortest paths by bidirectional Dijkstra: one search runs
+ * forward from the origin over Node.getNeighbors() and another backward
+ * from the destination over a ReverseIndex, taking turns settling one node
+ * each. Whenever an edge joins the two searches, mu is updated to the
+ * length of the shortest origin-destination path seen so far. The search
+ * stops once the smallest priorities in the two frontiers add up to at
+ * least mu, since any path not yet seen would have to be at least that
+ * long. The two balls searched have about half the radius of the one a
+ * one-way search explores, which on most graphs means far fewer settled
+ * nodes.
+ * Sample usage:
+ *   BidirectionalShortestPaths bsp = new BidirectionalShortestPaths(g);
+ *   bsp.compute(g.getNode("A"), g.getNode("B"));
+ *   LinkedList<Node> abPath = bsp.shortestPath();
+ *   double abPathLength = bsp.shortestPathLength(); */
+public class BidirectionalShortestPaths {
+
+    private final ReverseIndex reverse;
+
+    // state of the last compute, per direction
+    private Search forward;
+    private Search backward;
+    private double mu; // length of the shortest path found so far
+    private Node meeting; // node on that path where the searches meet
+
+    /** Constructor: prepare to search graph, building its ReverseIndex */
+    public BidirectionalShortestPaths(Graph graph) {
+        this(new ReverseIndex(graph));
+    }
+
+    /** Constructor: search the graph that reverse was built from */
+    public BidirectionalShortestPaths(ReverseIndex reverse) {
+        this.reverse = reverse;
+    }
+
+    /** One direction of the search: tentative distances, back pointers
+     * toward its own start, the settled nodes and the frontier. */
+    private class Search {
+        final boolean isForward;
+        final HashMap<Node, Double> distance = new HashMap<Node, Double>();
+        final HashMap<Node, Node> previous = new HashMap<Node, Node>();
+        final HashSet<Node> settled = new HashSet<Node>();
+        final Heap<Node, Double> frontier = new Heap<Node, Double>();
+
+        Search(Node start, boolean isForward) {
+            this.isForward = isForward;
+            distance.put(start, 0.0);
+            frontier.add(start, 0.0);
+        }
+
+        /* Settle the closest frontier node and relax its edges, updating mu
+         * wherever an edge reaches a node the other search has seen. */
+        void step(Search other) {
+            Node f = frontier.poll();
+            settled.add(f);
+            double fDistance = distance.get(f);
+            Map<Node, Double> edges = isForward ? f.getNeighbors()
+                : reverse.getIncoming(f);
+            for (Map.Entry<Node, Double> edge : edges.entrySet()) {
+                Node w = edge.getKey();
+                double d = fDistance + edge.getValue();
+                Double old = distance.get(w);
+                if (old == null) {
+                    frontier.add(w, d);
+                } else if (d < old && frontier.contains(w)) {
+                    frontier.changePriority(w, d);
+                } else {
+                    continue;
+                }
+                distance.put(w, d);
+                previous.put(w, f);
+                Double rest = other.distance.get(w);
+                if (rest != null && d + rest < mu) {
+                    mu = d + rest;
+                    meeting = w;
+                }
+            }
+        }
+    }
+
+    /** Compute the shortest path from origin to destination.
+     * Precondition: origin and destination are nodes in the graph, and edge
+     * weights are not negative. */
+    public void compute(Node origin, Node destination) {
+        forward = new Search(origin, true);
+        backward = new Search(destination, false);
+        mu = Double.POSITIVE_INFINITY;
+        meeting = null;
+        if (origin.equals(destination)) {
+            mu = 0;
+            meeting = origin;
+            return;
+        }
+        Search turn = forward;
+        while (forward.frontier.size() != 0
+                && backward.frontier.size() != 0
+                && forward.frontier.peekPriority()
+                    + backward.frontier.peekPriority() < mu) {
+            Search other = turn == forward ? backward : forward;
+            turn.step(other);
+            turn = other;
+        }
+    }
+
+    /** Returns the length of the shortest path from the origin to the
+     * destination of the last compute, or -1 if no path exists. */
+    public double shortestPathLength() {
+        return meeting == null ? -1 : mu;
+    }
+
+    /** Returns a LinkedList of the nodes along the shortest path from the
+     * origin to the destination of the last compute, including both; empty
+     * if no path exists. */
+    public LinkedList<Node> shortestPath() {
+        LinkedList<Node> list = new LinkedList<Node>();
+        if (meeting == null) {
+            return list;
+        }
+        for (Node v = meeting; v != null; v = forward.previous.get(v)) {
+            list.addFirst(v);
+        }
+        for (Node v = backward.previous.get(meeting); v != null;
+                v = backward.previous.get(v)) {
+            list.addLast(v);
+        }
+        return list;
+    }
+
+    /** Return the number of nodes settled by the last compute, counting both
+     * directions. */
+    public int settledCount() {
+        return forward.settled.size() + backward.settled.size();
+    }
+}
@@ -0,0 +1,550 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/** Fast repeated point-to-point shortest paths on a graph that does not
+ * change, by contraction hierarchies.
+ *
+ * Preprocessing (the constructor) removes ("contracts") the nodes one at a
+ * time, least important first. Contracting v deletes it from the remaining
+ * graph, adding a shortcut edge u->w of weight c(u,v) + c(v,w) for each pair
+ * of remaining neighbors u->v->w unless a witness search finds a path from
+ * u to w that avoids v and is no longer. Importance is the edge difference
+ * (shortcuts added minus edges removed) plus the number of neighbors already
+ * contracted, which keeps contraction spread evenly over the graph; it is
+ * recomputed lazily when a node comes up, and for the neighbors of each node
+ * contracted.
+ *
+ * A node's rank is its position in that order. Every edge and shortcut is
+ * kept either in the upward graph (from lower to higher rank) or the
+ * downward graph (from higher to lower rank, stored at its lower end). A
+ * query runs Dijkstra's algorithm forward from the origin over upward edges
+ * only and backward from the destination over downward edges only: every
+ * shortest path has a shortest equivalent that goes up and then down, so
+ * the two searches meet on its highest node. They only ever climb, so on
+ * road-like graphs they settle a few hundred nodes where Dijkstra's
+ * algorithm settles tens of thousands. The path found is unpacked, shortcut
+ * by shortcut, into the original edges.
+ *
+ * Later changes to the graph are not reflected; build a new hierarchy.
+ * Sample usage:
+ *   ContractionHierarchy ch = new ContractionHierarchy(g);
+ *   ch.compute(g.getNode("A"), g.getNode("B"));
+ *   LinkedList<Node> abPath = ch.shortestPath();
+ *   double abPathLength = ch.shortestPathLength(); */
+public class ContractionHierarchy {
+
+    // most nodes a witness search settles before giving up, and adding the
+    // shortcut; more finds more witnesses, but makes preprocessing slower.
+    // Estimating importance only needs a rough count, so it uses less.
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+
+    private final FrozenGraph graph; // numbers the nodes
+    private final int[] rank; // position of each node in contraction order
+    private final int shortcutCount;
+
+    // upward graph: edge e leaves v for upTargets[e], a node of higher rank,
+    // for upOffsets[v] <= e < upOffsets[v+1]. Mids are the contracted node
+    // a shortcut bypasses, or -1 for an edge of the graph.
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMids;
+
+    // downward graph: edge e comes into v from downSources[e], a node of
+    // higher rank, for downOffsets[v] <= e < downOffsets[v+1]
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMids;
+
+    // query state, reset after each query by walking the touched nodes
+    private final double[] forwardDist;
+    private final double[] backwardDist;
+    private final int[] forwardPrev; // previous node toward the origin
+    private final int[] forwardEdge; // up edge from forwardPrev
+    private final int[] backwardNext; // next node toward the destination
+    private final int[] backwardEdge; // down edge to backwardNext
+    private final IndexedDoubleHeap forwardQueue;
+    private final IndexedDoubleHeap backwardQueue;
+    private final int[] touched;
+    private int touchedCount;
+    private double mu; // length of the shortest path found so far
+    private int meeting; // node where that path's two halves meet, or -1
+    private int settled;
+
+    /** Constructor: preprocess graph. This takes as long as hundreds of
+     * Dijkstra searches, several seconds for tens of thousands of nodes,
+     * but is done once for any number of queries. */
+    public ContractionHierarchy(Graph graph) {
+        this.graph = graph.freeze();
+        int n = this.graph.nodeCount();
+        Contractor c = new Contractor(this.graph);
+        c.contractAll();
+        rank = c.rank;
+        shortcutCount = c.shortcuts;
+
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] = upOffsets[v] + c.out[v].size;
+            downOffsets[v + 1] = downOffsets[v] + c.in[v].size;
+        }
+        upTargets = new int[upOffsets[n]];
+        upWeights = new double[upOffsets[n]];
+        upMids = new int[upOffsets[n]];
+        downSources = new int[downOffsets[n]];
+        downWeights = new double[downOffsets[n]];
+        downMids = new int[downOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            // a contracted node's lists are exactly its edges to the nodes
+            // contracted after it
+            c.out[v].copyTo(upTargets, upWeights, upMids, upOffsets[v]);
+            c.in[v].copyTo(downSources, downWeights, downMids,
+                    downOffsets[v]);
+        }
+
+        forwardDist = new double[n];
+        backwardDist = new double[n];
+        forwardPrev = new int[n];
+        forwardEdge = new int[n];
+        backwardNext = new int[n];
+        backwardEdge = new int[n];
+        for (int v = 0; v < n; v++) {
+            forwardDist[v] = Double.POSITIVE_INFINITY;
+            backwardDist[v] = Double.POSITIVE_INFINITY;
+        }
+        forwardQueue = new IndexedDoubleHeap(n);
+        backwardQueue = new IndexedDoubleHeap(n);
+        touched = new int[2 * n];
+        meeting = -1;
+    }
+
+    /** Return the number of shortcuts preprocessing added */
+    public int shortcutCount() {
+        return shortcutCount;
+    }
+
+    /** Return the rank of v: the number of nodes contracted before it */
+    public int rank(Node v) {
+        return rank[graph.id(v)];
+    }
+
+    /** Compute the shortest path from origin to destination.
+     * Precondition: origin and destination are nodes in the graph. */
+    public void compute(Node origin, Node destination) {
+        reset();
+        int s = graph.id(origin);
+        int t = graph.id(destination);
+        touch(s);
+        forwardDist[s] = 0;
+        forwardPrev[s] = -1;
+        forwardQueue.add(s, 0);
+        touch(t);
+        backwardDist[t] = 0;
+        backwardNext[t] = -1;
+        backwardQueue.add(t, 0);
+        if (s == t) {
+            mu = 0;
+            meeting = s;
+        }
+        // alternate between the directions until neither can improve mu
+        boolean forwardTurn = true;
+        while (true) {
+            boolean forwardOpen = forwardQueue.size() != 0
+                && forwardQueue.peekPriority() < mu;
+            boolean backwardOpen = backwardQueue.size() != 0
+                && backwardQueue.peekPriority() < mu;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            if (forwardOpen && (forwardTurn || !backwardOpen)) {
+                stepForward();
+            } else {
+                stepBackward();
+            }
+            forwardTurn = !forwardTurn;
+        }
+    }
+
+    /** Returns the length of the shortest path from the origin to the
+     * destination of the last compute, or -1 if no path exists. */
+    public double shortestPathLength() {
+        return meeting < 0 ? -1 : mu;
+    }
+
+    /** Returns a LinkedList of the nodes along the shortest path from the
+     * origin to the destination of the last compute, including both, with
+     * every shortcut replaced by the edges it stands for; empty if no path
+     * exists. */
+    public LinkedList<Node> shortestPath() {
+        LinkedList<Node> path = new LinkedList<Node>();
+        if (meeting < 0) {
+            return path;
+        }
+        appendForward(meeting, path);
+        for (int v = meeting; backwardNext[v] != -1; v = backwardNext[v]) {
+            int e = backwardEdge[v];
+            unpack(v, backwardNext[v], downMids[e], path);
+        }
+        return path;
+    }
+
+    /** Return the number of nodes settled by the last compute, counting both
+     * directions. */
+    public int settledCount() {
+        return settled;
+    }
+
+    /* Settle the closest node of the forward search and relax its upward
+     * edges. */
+    private void stepForward() {
+        int v = forwardQueue.poll();
+        settled++;
+        for (int e = upOffsets[v]; e < upOffsets[v + 1]; e++) {
+            int w = upTargets[e];
+            double d = forwardDist[v] + upWeights[e];
+            if (d < forwardDist[w]) {
+                if (forwardQueue.contains(w)) {
+                    forwardQueue.changePriority(w, d);
+                } else {
+                    touch(w);
+                    forwardQueue.add(w, d);
+                }
+                forwardDist[w] = d;
+                forwardPrev[w] = v;
+                forwardEdge[w] = e;
+                if (d + backwardDist[w] < mu) {
+                    mu = d + backwardDist[w];
+                    meeting = w;
+                }
+            }
+        }
+    }
+
+    /* Settle the closest node of the backward search and relax its
+     * downward edges in reverse. */
+    private void stepBackward() {
+        int v = backwardQueue.poll();
+        settled++;
+        for (int e = downOffsets[v]; e < downOffsets[v + 1]; e++) {
+            int u = downSources[e];
+            double d = backwardDist[v] + downWeights[e];
+            if (d < backwardDist[u]) {
+                if (backwardQueue.contains(u)) {
+                    backwardQueue.changePriority(u, d);
+                } else {
+                    touch(u);
+                    backwardQueue.add(u, d);
+                }
+                backwardDist[u] = d;
+                backwardNext[u] = v;
+                backwardEdge[u] = e;
+                if (d + forwardDist[u] < mu) {
+                    mu = d + forwardDist[u];
+                    meeting = u;
+                }
+            }
+        }
+    }
+
+    /* Append the unpacked forward path from the origin to v. */
+    private void appendForward(int v, LinkedList<Node> path) {
+        if (forwardPrev[v] == -1) {
+            path.addLast(graph.node(v));
+            return;
+        }
+        appendForward(forwardPrev[v], path);
+        unpack(forwardPrev[v], v, upMids[forwardEdge[v]], path);
+    }
+
+    /* Append the nodes after u on the edge u->w that bypasses mid (-1 if
+     * the edge is in the graph), replacing shortcuts by their two halves.
+     * Both halves were edges of mid when it was contracted, so u->mid is in
+     * mid's downward list and mid->w in its upward list. */
+    private void unpack(int u, int w, int mid, LinkedList<Node> path) {
+        if (mid < 0) {
+            path.addLast(graph.node(w));
+            return;
+        }
+        int e = downOffsets[mid];
+        while (downSources[e] != u) {
+            e++;
+        }
+        unpack(u, mid, downMids[e], path);
+        e = upOffsets[mid];
+        while (upTargets[e] != w) {
+            e++;
+        }
+        unpack(mid, w, upMids[e], path);
+    }
+
+    /* Undo the last query's changes to the query state. */
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            forwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+            backwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+        }
+        touchedCount = 0;
+        forwardQueue.clear();
+        backwardQueue.clear();
+        mu = Double.POSITIVE_INFINITY;
+        meeting = -1;
+        settled = 0;
+    }
+
+    /* Record that v's query state must be reset. A node reached by both
+     * searches is recorded twice, hence the 2n entries. */
+    private void touch(int v) {
+        touched[touchedCount++] = v;
+    }
+
+    /** The edges into or out of one node while the graph is contracted:
+     * parallel arrays of the node at the other end, the weight, and the
+     * node a shortcut bypasses (-1 for an edge of the graph). */
+    private static final class EdgeList {
+        int[] nodes = new int[4];
+        double[] weights = new double[4];
+        int[] mids = new int[4];
+        int size;
+
+        int indexOf(int v) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == v) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int v, double weight, int mid) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                mids = Arrays.copyOf(mids, 2 * size);
+            }
+            nodes[size] = v;
+            weights[size] = weight;
+            mids[size] = mid;
+            size++;
+        }
+
+        /* Remove entry i, moving the last entry into its place. */
+        void removeAt(int i) {
+            size--;
+            nodes[i] = nodes[size];
+            weights[i] = weights[size];
+            mids[i] = mids[size];
+        }
+
+        void copyTo(int[] n, double[] w, int[] m, int at) {
+            System.arraycopy(nodes, 0, n, at, size);
+            System.arraycopy(weights, 0, w, at, size);
+            System.arraycopy(mids, 0, m, at, size);
+        }
+    }
+
+    /** The preprocessing state: the remaining graph as edge lists, which
+     * shrink as nodes are contracted and gain shortcuts, and the scratch
+     * space of the witness searches. */
+    private static final class Contractor {
+        final int n;
+        final EdgeList[] out;
+        final EdgeList[] in;
+        final int[] contractedNeighbors;
+        final int[] rank;
+        int shortcuts;
+
+        // witness search state, reset after each search
+        final double[] dist;
+        final int[] touched;
+        int touchedCount;
+        final IndexedDoubleHeap queue;
+        final int[] target; // == stamp for the current search's targets
+        int stamp;
+
+        Contractor(FrozenGraph g) {
+            n = g.nodeCount();
+            out = new EdgeList[n];
+            in = new EdgeList[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new EdgeList();
+                in[v] = new EdgeList();
+            }
+            for (int v = 0; v < n; v++) {
+                for (int e = g.firstEdge(v); e < g.endEdge(v); e++) {
+                    int w = g.target(e);
+                    if (w != v) { // a loop is never on a shortest path
+                        out[v].add(w, g.weight(e), -1);
+                        in[w].add(v, g.weight(e), -1);
+                    }
+                }
+            }
+            contractedNeighbors = new int[n];
+            rank = new int[n];
+            dist = new double[n];
+            for (int v = 0; v < n; v++) {
+                dist[v] = Double.POSITIVE_INFINITY;
+            }
+            touched = new int[n];
+            queue = new IndexedDoubleHeap(n);
+            target = new int[n];
+        }
+
+        /* Contract every node, least important first, recording ranks. */
+        void contractAll() {
+            IndexedDoubleHeap order = new IndexedDoubleHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.add(v, importance(v));
+            }
+            int next = 0;
+            while (order.size() != 0) {
+                int v = order.poll();
+                // priorities go stale as the graph changes; if v's has
+                // grown past the next node's, put it back and try again
+                double p = importance(v);
+                if (order.size() != 0 && p > order.peekPriority()) {
+                    order.add(v, p);
+                    continue;
+                }
+                contract(v);
+                rank[v] = next++;
+                for (int i = 0; i < in[v].size; i++) {
+                    int u = in[v].nodes[i];
+                    contractedNeighbors[u]++;
+                    order.changePriority(u, importance(u));
+                }
+                for (int i = 0; i < out[v].size; i++) {
+                    int w = out[v].nodes[i];
+                    contractedNeighbors[w]++;
+                    order.changePriority(w, importance(w));
+                }
+            }
+        }
+
+        /* Return the importance of v: its edge difference plus the number
+         * of its neighbors already contracted. */
+        double importance(int v) {
+            return shortcuts(v, false) - in[v].size - out[v].size
+                + contractedNeighbors[v];
+        }
+
+        /* Add v's shortcuts and remove v from the remaining graph. v's own
+         * edge lists are left as they are: they become its upward and
+         * downward edges. */
+        void contract(int v) {
+            shortcuts(v, true);
+            for (int i = 0; i < in[v].size; i++) {
+                EdgeList uOut = out[in[v].nodes[i]];
+                uOut.removeAt(uOut.indexOf(v));
+            }
+            for (int i = 0; i < out[v].size; i++) {
+                EdgeList wIn = in[out[v].nodes[i]];
+                wIn.removeAt(wIn.indexOf(v));
+            }
+        }
+
+        /* Return the number of shortcuts contracting v needs, adding them
+         * to the remaining graph if add is true. */
+        int shortcuts(int v, boolean add) {
+            int count = 0;
+            for (int i = 0; i < in[v].size; i++) {
+                int u = in[v].nodes[i];
+                double toV = in[v].weights[i];
+                double max = -1;
+                for (int j = 0; j < out[v].size; j++) {
+                    if (out[v].nodes[j] != u) {
+                        max = Math.max(max, toV + out[v].weights[j]);
+                    }
+                }
+                if (max < 0) {
+                    continue; // v's only successor is u itself
+                }
+                // the targets: v's successors other than u
+                stamp++;
+                int targets = 0;
+                for (int j = 0; j < out[v].size; j++) {
+                    if (out[v].nodes[j] != u) {
+                        target[out[v].nodes[j]] = stamp;
+                        targets++;
+                    }
+                }
+                witnessSearch(u, v, max, targets,
+                        add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < out[v].size; j++) {
+                    int w = out[v].nodes[j];
+                    double via = toV + out[v].weights[j];
+                    if (w != u && dist[w] > via) {
+                        count++;
+                        if (add) {
+                            addShortcut(u, w, via, v);
+                        }
+                    }
+                }
+                resetWitness();
+            }
+            return count;
+        }
+
+        /* Dijkstra from source in the remaining graph without avoid, until
+         * it has settled the given number of target nodes (those marked with
+         * the current stamp), passed distance max or settled limit nodes.
+         * Leaves the distances found in dist. */
+        void witnessSearch(int source, int avoid, double max, int targets,
+                int limit) {
+            dist[source] = 0;
+            touched[touchedCount++] = source;
+            queue.add(source, 0);
+            int settled = 0;
+            while (queue.size() != 0 && settled < limit
+                    && queue.peekPriority() <= max) {
+                int x = queue.poll();
+                settled++;
+                if (target[x] == stamp && --targets == 0) {
+                    break;
+                }
+                EdgeList edges = out[x];
+                for (int k = 0; k < edges.size; k++) {
+                    int y = edges.nodes[k];
+                    double d = dist[x] + edges.weights[k];
+                    if (y != avoid && d < dist[y]) {
+                        if (queue.contains(y)) {
+                            queue.changePriority(y, d);
+                        } else {
+                            touched[touchedCount++] = y;
+                            queue.add(y, d);
+                        }
+                        dist[y] = d;
+                    }
+                }
+            }
+        }
+
+        void resetWitness() {
+            for (int i = 0; i < touchedCount; i++) {
+                dist[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+            queue.clear();
+        }
+
+        /* Add the shortcut u->w bypassing mid, or shorten the existing edge
+         * u->w to weight if it is longer. */
+        void addShortcut(int u, int w, double weight, int mid) {
+            int i = out[u].indexOf(w);
+            if (i < 0) {
+                out[u].add(w, weight, mid);
+                in[w].add(u, weight, mid);
+            } else if (weight < out[u].weights[i]) {
+                out[u].weights[i] = weight;
+                out[u].mids[i] = mid;
+                int j = in[w].indexOf(u);
+                in[w].weights[j] = weight;
+                in[w].mids[j] = mid;
+            } else {
+                return;
+            }
+            shortcuts++;
+        }
+    }
+}
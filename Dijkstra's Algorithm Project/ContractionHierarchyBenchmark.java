@@ -0,0 +1,76 @@
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Times ContractionHierarchy preprocessing on a graph file, then compares
+ * its queries with the early-exit search ShortestPaths.compute(origin,
+ * destination) on random node pairs. For each pair both must report the
+ * same length, and the unpacked path must start at the origin, end at the
+ * destination and add up to that length. Prints the number of shortcuts and
+ * the mean number of settled nodes and time per query of each.
+ * Usage: java ContractionHierarchyBenchmark basic|db1b FILE [pairs] */
+public class ContractionHierarchyBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Graph graph = ShortestPaths.parseGraph(args[0], args[1]);
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        graph.report();
+        ArrayList<Node> nodes = new ArrayList<Node>(graph.getNodes().values());
+        Random rnd = new Random(42);
+
+        long start = System.nanoTime();
+        ContractionHierarchy ch = new ContractionHierarchy(graph);
+        System.out.println("preprocessing: "
+                + (System.nanoTime() - start) / 1e6 + " ms, "
+                + ch.shortcutCount() + " shortcuts");
+
+        Node[] origins = new Node[pairs];
+        Node[] destinations = new Node[pairs];
+        for (int q = 0; q < pairs; q++) {
+            origins[q] = nodes.get(rnd.nextInt(nodes.size()));
+            destinations[q] = nodes.get(rnd.nextInt(nodes.size()));
+        }
+
+        ShortestPaths sp = new ShortestPaths();
+        long dijkstraSettled = 0;
+        long dijkstraTime = 0;
+        int failures = 0;
+        for (int q = 0; q < pairs; q++) {
+            Node s = origins[q];
+            Node t = destinations[q];
+            start = System.nanoTime();
+            sp.compute(s, t);
+            dijkstraTime += System.nanoTime() - start;
+            dijkstraSettled += sp.settledCount();
+
+            ch.compute(s, t);
+            double expected = sp.shortestPathLength(t);
+            double length = ch.shortestPathLength();
+            double unpacked = BidirectionalBenchmark.pathLength(
+                    ch.shortestPath(), s, t);
+            if (!BidirectionalBenchmark.close(expected, length)
+                    || !BidirectionalBenchmark.close(length, unpacked)) {
+                failures++;
+                System.out.println("mismatch " + s + " -> " + t + ": "
+                        + expected + " vs " + length + " (path " + unpacked
+                        + ")");
+            }
+        }
+
+        // time the queries again on their own, now that they are warm
+        long chSettled = 0;
+        start = System.nanoTime();
+        for (int q = 0; q < pairs; q++) {
+            ch.compute(origins[q], destinations[q]);
+            chSettled += ch.settledCount();
+        }
+        long chTime = System.nanoTime() - start;
+
+        System.out.println("dijkstra:  " + dijkstraSettled / pairs
+                + " settled, " + dijkstraTime / 1e3 / pairs + " us per query");
+        System.out.println("hierarchy: " + chSettled / pairs
+                + " settled, " + chTime / 1e3 / pairs + " us per query");
+        System.out.println(failures == 0 ? "all " + pairs + " pairs agree"
+                : failures + " pairs differ");
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Map;
+
+/** An immutable copy of a Graph in compressed sparse row (CSR) form, made
+ * by Graph.freeze(). Nodes are numbered with dense int ids 0..nodeCount()-1
+ * and all edges are stored in two flat arrays ordered by source node: the
+ * edges leaving node v are e = firstEdge(v) .. endEdge(v) - 1, going to
+ * target(e) with weight weight(e). Walking a node's edges is therefore a
+ * scan of adjacent array entries, with no hashing, boxing or allocation.
+ *
+ * Later changes to the Graph or its Nodes are not reflected here; freeze
+ * the graph again after changing it.
+ * Sample usage:
+ *   FrozenGraph fg = graph.freeze();
+ *   int v = fg.id(graph.getNode("A"));
+ *   for (int e = fg.firstEdge(v); e < fg.endEdge(v); e++) {
+ *       visit(fg.target(e), fg.weight(e));
+ *   } */
+public final class FrozenGraph {
+
+    /**
+     * Class Invariants:
+     *   1. nodes[ids.getInt(n)] == n for each of the graph's nodes n.
+     *   2. offsets has nodeCount() + 1 entries, offsets[0] == 0, and
+     *      offsets[v] <= offsets[v+1].
+     *   3. For offsets[v] <= e < offsets[v+1], there is an edge from v to
+     *      targets[e] with weight weights[e].
+     */
+    private final Node[] nodes;
+    private final ObjectIntHashTable<Node> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /** Constructor: copy graph. Used by Graph.freeze(). */
+    FrozenGraph(Graph graph) {
+        int n = graph.getNodes().size();
+        nodes = new Node[n];
+        ids = new ObjectIntHashTable<Node>(n);
+        int v = 0;
+        int edges = 0;
+        for (Node node : graph.getNodes().values()) {
+            nodes[v] = node;
+            ids.putInt(node, v);
+            edges += node.getNeighbors().size();
+            v++;
+        }
+        offsets = new int[n + 1];
+        targets = new int[edges];
+        weights = new double[edges];
+        int e = 0;
+        for (v = 0; v < n; v++) {
+            offsets[v] = e;
+            for (Map.Entry<Node, Double> edge
+                    : nodes[v].getNeighbors().entrySet()) {
+                targets[e] = ids.getInt(edge.getKey());
+                weights[e] = edge.getValue();
+                e++;
+            }
+        }
+        offsets[n] = e;
+    }
+
+    /** Return the number of nodes */
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    /** Return the number of edges */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /** Return the id of node n, or -1 if n was not in the graph */
+    public int id(Node n) {
+        return ids.getInt(n);
+    }
+
+    /** Return the node with id v */
+    public Node node(int v) {
+        return nodes[v];
+    }
+
+    /** Return the index of the first edge leaving node v */
+    public int firstEdge(int v) {
+        return offsets[v];
+    }
+
+    /** Return one past the index of the last edge leaving node v */
+    public int endEdge(int v) {
+        return offsets[v + 1];
+    }
+
+    /** Return the node id at the end of edge e */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /** Return the weight of edge e */
+    public double weight(int e) {
+        return weights[e];
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.FileNotFoundException;
+
+/** Compares ShortestPaths with FrozenShortestPaths on a graph file: times
+ * freezing the graph and computing all shortest paths from the origin with
+ * each, then checks that both report the same length for every node.
+ * Usage: java FrozenGraphBenchmark basic|db1b FILE ORIGIN [repeats] */
+public class FrozenGraphBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Graph graph = ShortestPaths.parseGraph(args[0], args[1]);
+        Node origin = graph.getNode(args[2]);
+        int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        graph.report();
+
+        long start = System.nanoTime();
+        FrozenGraph frozen = graph.freeze();
+        System.out.println("freeze: " + (System.nanoTime() - start) / 1e6
+                + " ms");
+
+        ShortestPaths sp = new ShortestPaths();
+        FrozenShortestPaths fsp = new FrozenShortestPaths(frozen);
+        // the first half of the repeats warm up; time the second half
+        long mapTime = 0;
+        long arrayTime = 0;
+        for (int r = 0; r < repeats; r++) {
+            start = System.nanoTime();
+            sp.compute(origin);
+            long mid = System.nanoTime();
+            fsp.compute(origin);
+            long end = System.nanoTime();
+            if (r >= repeats / 2) {
+                mapTime += mid - start;
+                arrayTime += end - mid;
+            }
+        }
+        int timed = repeats - repeats / 2;
+        System.out.println("ShortestPaths:       " + mapTime / 1e6 / timed
+                + " ms per compute");
+        System.out.println("FrozenShortestPaths: " + arrayTime / 1e6 / timed
+                + " ms per compute");
+
+        int mismatches = 0;
+        for (Node n : graph.getNodes().values()) {
+            double a = sp.shortestPathLength(n);
+            double b = fsp.shortestPathLength(n);
+            if (a != b) {
+                mismatches++;
+                if (mismatches <= 10) {
+                    System.out.println("mismatch at " + n + ": " + a + " vs "
+                            + b);
+                }
+            }
+        }
+        System.out.println(mismatches == 0 ? "all lengths agree"
+                : mismatches + " lengths differ");
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/** Dijkstra's algorithm over a FrozenGraph. It computes the same shortest
+ * path lengths as ShortestPaths, but keeps its per-node state in a double[]
+ * of distances and an int[] of predecessors indexed by node id, and its
+ * frontier in an IndexedDoubleHeap, so a search does no hashing and no
+ * allocation. The arrays are reused by every compute on the same instance.
+ * When several shortest paths tie, the one returned may differ from the
+ * one ShortestPaths returns; their lengths are equal.
+ * Sample usage:
+ *   FrozenGraph fg = graph.freeze();
+ *   FrozenShortestPaths sp = new FrozenShortestPaths(fg);
+ *   sp.compute(graph.getNode("A"));
+ *   double abPathLength = sp.shortestPathLength(graph.getNode("B"));
+ *   LinkedList<Node> abPath = sp.shortestPath(graph.getNode("B")); */
+public class FrozenShortestPaths {
+
+    private final FrozenGraph graph;
+    private final double[] distance; // from the origin; infinite if unreached
+    private final int[] previous; // predecessor on a shortest path, or -1
+    private final IndexedDoubleHeap frontier;
+
+    /** Constructor: prepare to search graph */
+    public FrozenShortestPaths(FrozenGraph graph) {
+        this.graph = graph;
+        distance = new double[graph.nodeCount()];
+        previous = new int[graph.nodeCount()];
+        frontier = new IndexedDoubleHeap(graph.nodeCount());
+    }
+
+    /** Compute the shortest path to all nodes from origin.
+     * Precondition: origin is a node in the graph. */
+    public void compute(Node origin) {
+        compute(graph.id(origin));
+    }
+
+    /** Compute the shortest path to all nodes from the node with id origin.
+     * Precondition: edge weights are not negative. */
+    public void compute(int origin) {
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        frontier.clear();
+        distance[origin] = 0;
+        frontier.add(origin, 0);
+        while (frontier.size() != 0) {
+            int f = frontier.poll();
+            double fDistance = distance[f];
+            for (int e = graph.firstEdge(f); e < graph.endEdge(f); e++) {
+                int w = graph.target(e);
+                double d = fDistance + graph.weight(e);
+                if (d < distance[w]) {
+                    // w is unreached or in the frontier: a settled node is
+                    // never improved when weights are not negative
+                    if (frontier.contains(w)) {
+                        frontier.changePriority(w, d);
+                    } else {
+                        frontier.add(w, d);
+                    }
+                    distance[w] = d;
+                    previous[w] = f;
+                }
+            }
+        }
+    }
+
+    /** Return the distance from the origin to the node with id v, or
+     * Double.POSITIVE_INFINITY if it is unreachable.
+     * Precondition: compute has been called. */
+    public double distance(int v) {
+        return distance[v];
+    }
+
+    /** Return the id of the node before v on its shortest path, or -1 if v
+     * is the origin or unreachable.
+     * Precondition: compute has been called. */
+    public int previous(int v) {
+        return previous[v];
+    }
+
+    /** Returns the length of the shortest path from the origin to
+     * destination, or -1 if no path exists, as ShortestPaths does.
+     * Precondition: compute has been called. */
+    public double shortestPathLength(Node destination) {
+        int v = graph.id(destination);
+        if (v < 0 || distance[v] == Double.POSITIVE_INFINITY) {
+            return -1;
+        }
+        return distance[v];
+    }
+
+    /** Returns a LinkedList of the nodes along the shortest path from the
+     * origin to destination, including both; empty if no path exists.
+     * Precondition: compute has been called. */
+    public LinkedList<Node> shortestPath(Node destination) {
+        LinkedList<Node> list = new LinkedList<Node>();
+        int v = graph.id(destination);
+        if (v < 0 || distance[v] == Double.POSITIVE_INFINITY) {
+            return list;
+        }
+        for (; v != -1; v = previous[v]) {
+            list.addFirst(graph.node(v));
+        }
+        return list;
+    }
+}
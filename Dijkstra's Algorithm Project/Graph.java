@@ -41,6 +41,28 @@ public class Graph {
         orig.addNeighbor(dest, distance);
     }
 
+    /** Return an immutable compressed sparse row copy of this graph, for
+     * fast repeated searches with FrozenShortestPaths. Later changes to the
+     * graph are not reflected in the copy. */
+    public FrozenGraph freeze() {
+        return new FrozenGraph(this);
+    }
+
+    /** Return a new graph with the same node ids and every edge reversed:
+     * shortest paths to a node in this graph are shortest paths from it in
+     * the reverse, read backward. */
+    public Graph reverse() {
+        Graph reverse = new Graph();
+        for (Node u : nodes.values()) {
+            Node uRev = reverse.getNode(u.getId());
+            for (Map.Entry<Node, Double> edge : u.getNeighbors().entrySet()) {
+                reverse.addEdge(reverse.getNode(edge.getKey().getId()), uRev,
+                        edge.getValue());
+            }
+        }
+        return reverse;
+    }
+
     /** Print a report of the graph's statistics, including number of nodes,
      * number of edges, and average degree. */
     public void report() {
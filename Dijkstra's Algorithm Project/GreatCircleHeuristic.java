@@ -0,0 +1,90 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/** A heuristic for graphs of places on the Earth, such as airports: the
+ * great-circle distance between two nodes' coordinates. No route between
+ * two places is shorter than the great circle between them, so this is a
+ * lower bound whenever edge weights are travel distances in the same units
+ * as the radius.
+ *
+ * Coordinates are read from a text file in which each line holds
+ *  ID LATITUDE LONGITUDE
+ * separated by whitespace, with latitude and longitude in degrees. Lines
+ * starting with # are ignored. Nodes without coordinates get the bound 0,
+ * so a partial coordinates file still gives correct (if slower) searches.
+ * Sample usage:
+ *   Heuristic h = new GreatCircleHeuristic(new File("airports.txt"));
+ *   sp.compute(g.getNode("ITH"), g.getNode("SEA"), h); */
+public class GreatCircleHeuristic implements Heuristic {
+
+    /** A radius in miles that keeps great-circle distances below true
+     * distances on the Earth's ellipsoid. The Earth curves most sharply
+     * north-south at the equator, where its radius of curvature is
+     * a(1 - e^2) = 3936.7 miles; the polar radius (3949.9) is not the
+     * smallest and overestimates such distances by about 0.3%. */
+    public static final double EARTH_RADIUS_MILES = 3936.0;
+
+    private final double radius;
+    // maps node ids to {latitude, longitude, cos(latitude)}, in radians
+    private final HashMap<String, double[]> coordinates;
+
+    /** Constructor: read coordinates from file, measuring in miles.
+     * @throws FileNotFoundException if file cannot be opened */
+    public GreatCircleHeuristic(File file) throws FileNotFoundException {
+        this(file, EARTH_RADIUS_MILES);
+    }
+
+    /** Constructor: read coordinates from file, measuring distances on a
+     * sphere of the given radius. A radius a little below the true one
+     * keeps the bound admissible when edge weights have been rounded down.
+     * @throws FileNotFoundException if file cannot be opened
+     * @throws IllegalArgumentException if a line is malformed */
+    public GreatCircleHeuristic(File file, double radius)
+        throws FileNotFoundException {
+        this.radius = radius;
+        coordinates = new HashMap<String, double[]>();
+        Scanner sc = new Scanner(file);
+        try {
+            while (sc.hasNextLine()) {
+                String line = sc.nextLine().trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] data = line.split("\\s+");
+                if (data.length < 3) {
+                    throw new IllegalArgumentException(
+                            "Bad coordinates line: " + line);
+                }
+                double lat = Math.toRadians(Double.parseDouble(data[1]));
+                double lon = Math.toRadians(Double.parseDouble(data[2]));
+                coordinates.put(data[0],
+                        new double[] {lat, lon, Math.cos(lat)});
+            }
+        } finally {
+            sc.close();
+        }
+    }
+
+    /** Return true if the coordinates file gave a position for v */
+    public boolean hasCoordinates(Node v) {
+        return coordinates.containsKey(v.getId());
+    }
+
+    /** Return the great-circle distance from v to target, or 0 if either
+     * has no coordinates. */
+    @Override
+    public double lowerBound(Node v, Node target) {
+        double[] a = coordinates.get(v.getId());
+        double[] b = coordinates.get(target.getId());
+        if (a == null || b == null) {
+            return 0;
+        }
+        // haversine formula, which stays accurate for short distances
+        double sinLat = Math.sin((b[0] - a[0]) / 2);
+        double sinLon = Math.sin((b[1] - a[1]) / 2);
+        double h = sinLat * sinLat + a[2] * b[2] * sinLon * sinLon;
+        return 2 * radius * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+}
@@ -1,11 +1,73 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
 /** A hash table modeled after java.util.Map. It uses chaining for collision
  * resolution and grows its underlying storage by a factor of 2 when the load
- * factor exceeds 0.8. */
+ * factor exceeds 0.8.
+ *
+ * The capacity is always a power of two, so a key's bucket is the low bits
+ * of its hash code after mixing (see spread) rather than a remainder. Each
+ * Pair caches that mixed hash, so growing never calls hashCode again and
+ * chains compare cached hashes before keys. Growing relinks the existing
+ * Pairs into the new bucket array: it allocates nothing but the array.
+ *
+ * By default growing rehashes every entry at once, so the put that triggers
+ * it takes time proportional to the size of the table. A table constructed
+ * in incremental mode instead keeps the old bucket array alongside the new
+ * one and moves at most MIGRATE_STEP old buckets per subsequent operation,
+ * checking both arrays until the move is done. That bounds the rehashing
+ * done by any one operation to O(1) amortized.
+ *
+ * A bucket whose chain grows past TREEIFY_THRESHOLD entries, as happens
+ * when many keys share a hash code, is converted into an AVL tree ordered
+ * by hash (see compareKeys), and back into a chain once it shrinks to
+ * UNTREEIFY_THRESHOLD. Operations on such a bucket take O(log n) time
+ * instead of O(n); ordinary short chains are unaffected.
+ *
+ * The table never shrinks unless asked: setMinLoadFactor makes remove
+ * halve the capacity whenever the load factor drops below the given
+ * minimum, and trimToSize shrinks it once to fit the current size.
+ * ensureCapacity(n) grows it ahead of a bulk load so that n mappings fit
+ * without any further rehashing.
+ *
+ * forEach, the iterators and spliterator visit every mapping once, in no
+ * particular order, without copying the table. Like java.util.HashMap's,
+ * they fail with ConcurrentModificationException if the table changes
+ * structurally while they run: a mapping is added or removed, the table is
+ * resized, or (in incremental mode) any operation moves buckets. Replacing
+ * the value of an existing key is not a structural change. */
 public class HashTable<K,V> {
 
+    // old buckets moved into the new array by each operation during an
+    // incremental resize
+    protected static final int MIGRATE_STEP = 4;
+
+    // chain length above which a bucket becomes a tree, and tree size at or
+    // below which it becomes a chain again
+    protected static final int TREEIFY_THRESHOLD = 8;
+    protected static final int UNTREEIFY_THRESHOLD = 6;
+
     protected Pair[] buckets; // array of list nodes that store K,V pairs
     protected int size; // how many items currently in the map
 
+    private final boolean incremental; // true to resize incrementally
+    private Pair[] oldBuckets; // non-null while an incremental resize runs
+    private int migrated; // oldBuckets[0..migrated-1] have been moved
+    private double minLoadFactor; // shrink below this load; 0 to never shrink
+    private int modCount; // structural changes, for the iterators
+
+    // capacity below which remove never shrinks the table
+    protected static final int MIN_SHRINK_CAPACITY = 16;
+
+    // the largest power of two an int-indexed array can have; past it the
+    // table stops growing and its chains just get longer
+    protected static final int MAXIMUM_CAPACITY = 1 << 30;
+
 
     /** class Pair stores a key-value pair and a next pointer for chaining
      * multiple values together in the same bucket, linked-list style*/
@@ -13,19 +75,35 @@ public class HashTable<K,V> {
         protected K key;
         protected V value;
         protected Pair next;
+        protected final int hash; // spread(key.hashCode())
 
         /** constructor: sets key and value */
         public Pair(K k, V v) {
-            key = k;
-            value = v;
-            next = null;
+            this(k, v, null);
         }
 
         /** constructor: sets key, value, and next */
         public Pair(K k, V v, Pair nxt) {
+            this(k, v, nxt, spread(k.hashCode()));
+        }
+
+        /** constructor: sets key, value, next, and the already spread hash
+         * of the key */
+        protected Pair(K k, V v, Pair nxt, int h) {
             key = k;
             value = v;
             next = nxt;
+            hash = h;
+        }
+
+        /** returns the key of this pair */
+        public K getKey() {
+            return key;
+        }
+
+        /** returns the value of this pair */
+        public V getValue() {
+            return value;
         }
 
         /** returns (k, v) String representation of the pair */
@@ -34,14 +112,54 @@ public class HashTable<K,V> {
         }
     }
 
-    /** constructor: initialize with default capacity 17 */
+    /** A Pair in a treeified bucket: a node of an AVL tree ordered by
+     * compareKeys. next is null while the node is in a tree. */
+    protected class TreeNode extends Pair {
+        protected TreeNode left;
+        protected TreeNode right;
+        protected int height; // of the subtree rooted here; a leaf is 1
+
+        /** constructor: sets key, value, and the spread hash of the key */
+        protected TreeNode(K k, V v, int h) {
+            super(k, v, null, h);
+            height = 1;
+        }
+    }
+
+    /** The first element of a treeified bucket. It holds no mapping itself
+     * (its key is null); it points to the root of the bucket's tree. */
+    protected class TreeBin extends Pair {
+        protected TreeNode root;
+        protected int count; // number of nodes in the tree
+        private TreeNode removed; // set by treeRemove to the node it removed
+
+        /** constructor: an empty tree */
+        protected TreeBin() {
+            super(null, null, null, 0);
+        }
+
+        /** returns a String representation of the bin for dump */
+        public String toString() {
+            return "[tree of " + count + "]";
+        }
+    }
+
+    /** constructor: initialize with default capacity 16 */
     public HashTable() {
-        this(17);
+        this(16);
     }
 
-    /** constructor: initialize the given capacity */
+    /** constructor: initialize the given capacity, rounded up to a power of
+     * two */
     public HashTable(int capacity) {
-        buckets = createBucketArray(capacity);
+        this(capacity, false);
+    }
+
+    /** constructor: initialize the given capacity, rounded up to a power of
+     * two; if incremental is true, resize incrementally as described above */
+    public HashTable(int capacity, boolean incremental) {
+        buckets = createBucketArray(tableSizeFor(capacity));
+        this.incremental = incremental;
     }
 
     /** Return the size of the map (the number of key-value mappings in the
@@ -56,30 +174,58 @@ public class HashTable<K,V> {
         return buckets.length;
     }
 
+    /** Set the load factor below which remove halves the capacity (but not
+     * below MIN_SHRINK_CAPACITY). 0, the default, turns shrinking off.
+     * @throws IllegalArgumentException unless 0 <= minLoadFactor < 0.4, so
+     * that a table just shrunk is not immediately over 0.8 and grown */
+    public void setMinLoadFactor(double minLoadFactor) {
+        if (!(minLoadFactor >= 0 && minLoadFactor < 0.4)) {
+            throw new IllegalArgumentException(
+                    "bad minimum load factor " + minLoadFactor);
+        }
+        this.minLoadFactor = minLoadFactor;
+    }
+
+    /** Shrink the capacity to the smallest power of two that holds the
+     * current mappings at a load factor of at most 0.8.
+     * Runtime: O(size + capacity) */
+    public void trimToSize() {
+        int capacity = capacityFor(getSize());
+        if (capacity < getCapacity()) {
+            rehash(capacity);
+        }
+    }
+
+    /** Grow the capacity, if needed, so that n mappings fit without the load
+     * factor exceeding 0.8. Calling this before adding n mappings means none
+     * of those puts will rehash. The capacity never exceeds
+     * MAXIMUM_CAPACITY, however large n is.
+     * Runtime: O(size + capacity) if the table grows, O(1) otherwise */
+    public void ensureCapacity(int n) {
+        int capacity = capacityFor(n);
+        if (capacity > getCapacity()) {
+            rehash(capacity);
+        }
+    }
+
+    /** Return true if an incremental resize is still moving buckets */
+    public boolean isResizing() {
+        return oldBuckets != null;
+    }
+
     /** Return the value to which the specified key is mapped, or null if this
      * map contains no mapping for the key.
      * Runtime: average case O(1); worst case O(size) */
     public V get(K key) {
-        int hash = (key.hashCode() % getCapacity());
-        if (hash < 0) {
-            hash = hash* -1;
+        migrateStep();
+        Pair node = findNode(buckets, key);
+        if (node == null && oldBuckets != null) {
+            node = findNode(oldBuckets, key);
         }
-        if (buckets[hash] == null) {
-            return null;
-        } else {
-            Pair node = buckets[hash];
-            while (node != null) {
-                if (node.key == key) {
-                    return node.value;
-                }
-                node = node.next;
-            }
+        if (node == null) {
             return null;
         }
-        
-        //do this together with put.
-        
-        //throw new UnsupportedOperationException();
+        return node.value;
     }
 
     /** Associate the specified value with the specified key in this map. If
@@ -88,47 +234,64 @@ public class HashTable<K,V> {
      * there was no mapping for key. If the load factor exceeds 0.8 after this
      * insertion, grow the array by a factor of two and rehash.
      * Precondition: val is not null.
-     * Runtime: average case O(1); worst case O(size + a.length)*/
+     * Runtime: average case O(1); worst case O(size + a.length), or
+     * O(size) in incremental mode */
     public V put(K key, V val) {
-        int hash = (key.hashCode() % getCapacity());
-        if (hash < 0) {
-            hash = hash * -1;
+        migrateStep();
+        if (oldBuckets != null) {
+            // a key not yet moved is updated where it is
+            Pair old = findNode(oldBuckets, key);
+            if (old != null) {
+                V retunThis = old.value;
+                old.value = val;
+                return retunThis;
+            }
         }
-        Pair newNode = new Pair(key, val);
+        int h = spread(key.hashCode());
+        int hash = h & (getCapacity() - 1);
         if (buckets[hash] == null) {
-            buckets[hash] = newNode;
+            buckets[hash] = new Pair(key, val, null, h);
             size++;
+            modCount++;
+            growIfNeeded();
+            return null;
+        } else if (buckets[hash] instanceof TreeBin) {
+            TreeBin bin = (TreeBin) buckets[hash];
+            TreeNode node = treeFind(bin.root, h, key);
+            if (node != null) {
+                V retunThis = node.value;
+                node.value = val;
+                return retunThis;
+            }
+            treeInsert(bin, new TreeNode(key, val, h));
+            size++;
+            modCount++;
             growIfNeeded();
             return null;
         } else {
             Pair oldNode = buckets[hash];
             Pair prev = null;
+            int length = 0;
             while (oldNode != null) {
-                if (oldNode.key == key) {
+                if (oldNode.hash == h && oldNode.key == key) {
                     V retunThis = oldNode.value;
                     oldNode.value = val;
                     return retunThis;
                 }
                 prev = oldNode;
                 oldNode = oldNode.next;
+                length++;
             }
             
-            prev.next = newNode;
+            prev.next = new Pair(key, val, null, h);
+            if (length + 1 > TREEIFY_THRESHOLD) {
+                treeify(buckets, hash);
+            }
             size++;
+            modCount++;
             growIfNeeded();
             return null;
         }
-
-        //   do this together with get. For now, don't worry about growing the
-        //   array and rehashing.
-        //   Tips:
-        //     - Use the key's hashCode method to find which bucket it belongs in.
-        //     - It's possible for hashCode to return a negative integer.
-        //
-        // modify this method to grow and rehash if the load factor
-        //            exceeds 0.8.
-        
-        //throw new UnsupportedOperationException();
     }
 
     /** Return true if this map contains a mapping for the specified key.
@@ -137,24 +300,11 @@ public class HashTable<K,V> {
         if (getSize() == 0) {
             return false;
         }
-        int hash = (key.hashCode() % getCapacity());
-        if (hash < 0) {
-            hash = hash * -1;
-        }
-        if (buckets[hash] == null) {
-            return false;
-        } else {
-            Pair node = buckets[hash];
-            while (node != null) {
-                if (node.key == key) {
-                    return true;
-                }
-                node = node.next;
-            }
-            return false;    
+        migrateStep();
+        if (findNode(buckets, key) != null) {
+            return true;
         }
-        
-        //throw new UnsupportedOperationException();
+        return oldBuckets != null && findNode(oldBuckets, key) != null;
     }
 
     /** Remove the mapping for the specified key from this map if present.
@@ -162,82 +312,724 @@ public class HashTable<K,V> {
      *  mapping for key.
      *  Runtime: average case O(1); worst case O(size)*/
     public V remove(K key) {
-        int hash = (key.hashCode() % getCapacity());
-        if (hash < 0) {
-            hash = hash * -1;
+        migrateStep();
+        Pair node = removeNode(buckets, key);
+        if (node == null && oldBuckets != null) {
+            node = removeNode(oldBuckets, key);
         }
-        if (buckets[hash] == null) {
+        if (node == null) {
+            return null;
+        }
+        size--;
+        modCount++;
+        if (getSize() < minLoadFactor * getCapacity()
+                && getCapacity() > MIN_SHRINK_CAPACITY) {
+            rehash(getCapacity() / 2);
+        }
+        return node.value;
+    }
+
+    /** Add every mapping of other to this map, replacing the values of keys
+     * already present. The table is first grown to hold all of them at once,
+     * assuming none of other's keys are already here, so no put rehashes.
+     * Runtime: O(other.getSize()) expected, plus O(size + capacity) if the
+     * table grows */
+    public void putAll(HashTable<? extends K, ? extends V> other) {
+        ensureCapacity(getSize() + other.getSize());
+        other.forEach(this::put);
+    }
+
+    /** Call action on every key and value in the map. Allocates nothing.
+     * @throws ConcurrentModificationException if action changes the table
+     * structurally */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int expected = modCount;
+        forEachIn(buckets, action);
+        if (oldBuckets != null) {
+            forEachIn(oldBuckets, action);
+        }
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /** Return an iterator over the keys of the map. */
+    public Iterator<K> keyIterator() {
+        return new KeyIterator();
+    }
+
+    /** Return an iterator over the mappings of the map. */
+    public Iterator<Pair> entryIterator() {
+        return new EntryIterator();
+    }
+
+    /** Return a Spliterator over the mappings of the map, which splits by
+     * ranges of buckets, for parallel scans such as
+     * StreamSupport.stream(table.spliterator(), true). */
+    public Spliterator<Pair> spliterator() {
+        return new EntrySpliterator(0, bucketCount());
+    }
+
+    /** Return a snapshot of how evenly the mappings are spread over the
+     * buckets. Runtime: O(size + capacity) */
+    public Stats stats() {
+        int[] lengths = new int[TREEIFY_THRESHOLD + 2];
+        int maxLength = 0;
+        int maxProbe = 0;
+        int trees = 0;
+        for (int v = 0; v < bucketCount(); v++) {
+            Pair node = bucket(v);
+            int length = 0;
+            int probe;
+            if (node instanceof TreeBin) {
+                TreeBin bin = (TreeBin) node;
+                length = bin.count;
+                probe = height(bin.root);
+                trees++;
+            } else {
+                for (; node != null; node = node.next) {
+                    length++;
+                }
+                probe = length;
+            }
+            if (length >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, 2 * length);
+            }
+            lengths[length]++;
+            maxLength = Math.max(maxLength, length);
+            maxProbe = Math.max(maxProbe, probe);
+        }
+        return new Stats(getSize(), getCapacity(),
+                Arrays.copyOf(lengths, maxLength + 1), maxProbe, trees,
+                isResizing());
+    }
+
+    /** Bucket statistics of a HashTable, as returned by stats(). */
+    public static final class Stats {
+        public final int size;
+        public final int capacity;
+        public final double loadFactor; // size / capacity
+        // chainLengths[k] is the number of buckets holding k mappings; a
+        // treeified bucket counts its whole tree
+        public final int[] chainLengths;
+        // most nodes a successful lookup can examine: the longest chain, or
+        // the tallest tree
+        public final int maxProbeLength;
+        public final int treeBins; // number of treeified buckets
+        public final boolean resizing; // counts include the old buckets
+
+        Stats(int size, int capacity, int[] chainLengths, int maxProbeLength,
+                int treeBins, boolean resizing) {
+            this.size = size;
+            this.capacity = capacity;
+            this.loadFactor = ((double) size) / capacity;
+            this.chainLengths = chainLengths;
+            this.maxProbeLength = maxProbeLength;
+            this.treeBins = treeBins;
+            this.resizing = resizing;
+        }
+
+        /** returns a multi-line summary for printing */
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("size %d capacity %d load %.3f max probe "
+                    + "%d tree bins %d%s%n", size, capacity, loadFactor,
+                    maxProbeLength, treeBins, resizing ? " (resizing)" : ""));
+            for (int k = 0; k < chainLengths.length; k++) {
+                if (chainLengths[k] > 0) {
+                    sb.append(String.format("  length %d: %d buckets%n", k,
+                            chainLengths[k]));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /* Return the number of buckets visited by a full scan: buckets, then
+     * oldBuckets during an incremental resize. */
+    private int bucketCount() {
+        return buckets.length + (oldBuckets == null ? 0 : oldBuckets.length);
+    }
+
+    /* Return bucket v in the order of bucketCount. */
+    private Pair bucket(int v) {
+        return v < buckets.length ? buckets[v] : oldBuckets[v - buckets.length];
+    }
+
+    /* Call action on every mapping in table. */
+    private void forEachIn(Pair[] table,
+            BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < table.length; i++) {
+            Pair node = table[i];
+            if (node instanceof TreeBin) {
+                forEachInTree(((TreeBin) node).root, action);
+                node = null;
+            }
+            for (; node != null; node = node.next) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    private void forEachInTree(TreeNode n,
+            BiConsumer<? super K, ? super V> action) {
+        if (n != null) {
+            forEachInTree(n.left, action);
+            action.accept(n.key, n.value);
+            forEachInTree(n.right, action);
+        }
+    }
+
+    /** Walks the mappings in buckets [index, end) of the bucketCount order,
+     * the shared part of the iterators and the spliterator. The tables are
+     * read through the fields, so a resize is noticed by the modCount check
+     * before a moved bucket can be read. */
+    private abstract class Cursor {
+        protected int index; // next bucket to enter
+        protected int end; // bucket to stop at
+        private Pair node; // next node of the current chain
+        private TreeNode[] stack; // pending nodes of the current tree
+        private int depth; // number of nodes on stack
+        protected final int expectedModCount = modCount;
+
+        Cursor(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        /* Return the next mapping, or null when there are no more. */
+        protected final Pair advance() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (true) {
+                if (depth > 0) {
+                    TreeNode n = stack[--depth];
+                    pushLeft(n.right);
+                    return n;
+                }
+                if (node != null) {
+                    Pair p = node;
+                    node = node.next;
+                    return p;
+                }
+                if (index >= end) {
+                    return null;
+                }
+                Pair head = bucket(index++);
+                if (head instanceof TreeBin) {
+                    TreeNode root = ((TreeBin) head).root;
+                    if (stack == null || stack.length < height(root)) {
+                        stack = createTreeNodeArray(height(root));
+                    }
+                    pushLeft(root);
+                } else {
+                    node = head;
+                }
+            }
+        }
+
+        /* Push n and its chain of left descendants, for in-order order. */
+        private void pushLeft(TreeNode n) {
+            for (; n != null; n = n.left) {
+                stack[depth++] = n;
+            }
+        }
+    }
+
+    /** Iterator over the mappings; looks one mapping ahead. */
+    private class EntryIterator extends Cursor implements Iterator<Pair> {
+        private Pair next;
+
+        EntryIterator() {
+            super(0, bucketCount());
+            next = advance();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Pair next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Pair p = next;
+            next = advance();
+            return p;
+        }
+    }
+
+    /** Iterator over the keys. */
+    private class KeyIterator implements Iterator<K> {
+        private final EntryIterator entries = new EntryIterator();
+
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        public K next() {
+            return entries.next().key;
+        }
+    }
+
+    /** Spliterator over the mappings in a range of buckets. */
+    private class EntrySpliterator extends Cursor
+        implements Spliterator<Pair> {
+
+        EntrySpliterator(int index, int end) {
+            super(index, end);
+        }
+
+        public boolean tryAdvance(Consumer<? super Pair> action) {
+            Pair p = advance();
+            if (p == null) {
+                return false;
+            }
+            action.accept(p);
+            return true;
+        }
+
+        /* Hand off the first half of the buckets not yet entered. */
+        public Spliterator<Pair> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            EntrySpliterator prefix = new EntrySpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        /* Assumes the mappings are spread evenly over the buckets. */
+        public long estimateSize() {
+            return (long) getSize() * (end - index)
+                / Math.max(bucketCount(), 1);
+        }
+
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /* Return the node for key in table, or null if there is none. */
+    private Pair findNode(Pair[] table, K key) {
+        int h = spread(key.hashCode());
+        Pair node = table[h & (table.length - 1)];
+        if (node instanceof TreeBin) {
+            return treeFind(((TreeBin) node).root, h, key);
+        }
+        while (node != null) {
+            if (node.hash == h && node.key == key) {
+                return node;
+            }
+            node = node.next;
+        }
+        return null;
+    }
+
+    /* Unlink and return the node for key in table, or null if there is
+     * none. Does not change size. */
+    private Pair removeNode(Pair[] table, K key) {
+        int h = spread(key.hashCode());
+        int hash = h & (table.length - 1);
+        Pair node = table[hash];
+        if (node == null) {
             return null;
         }
-        Pair node = buckets[hash];
-        if (node.key == key) {
-            if (node.next != null) {
-                buckets[hash] = node.next;
-                size--;
-                return node.value;
+        if (node instanceof TreeBin) {
+            TreeBin bin = (TreeBin) node;
+            bin.removed = null;
+            bin.root = treeRemove(bin, bin.root, h, key);
+            TreeNode removed = bin.removed;
+            bin.removed = null;
+            if (removed != null) {
+                bin.count--;
+                if (bin.count <= UNTREEIFY_THRESHOLD) {
+                    table[hash] = flatten(bin.root, null);
+                }
             }
-            buckets[hash] = null;
-            size--;
-            return node.value;
+            return removed;
+        }
+        if (node.hash == h && node.key == key) {
+            table[hash] = node.next;
+            return node;
         }
         Pair parent = node;
-        while (node.key != key) {
+        while (node.hash != h || node.key != key) {
             if (node.next == null) {
                 return null;
             }
             parent = node;
             node = node.next;
         }
-        if (node.next != null) {
-            parent.next = node.next;
-            size--;
-            return node.value;
-        }
-        parent.next = null;
-        size--;
-        return node.value;
-        
+        parent.next = node.next;
+        return node;
     }
 
+    /* Mix the bits of a hashCode so that the low bits used to pick a
+     * bucket depend on all of them; keys whose hashCodes differ only in high
+     * bits would otherwise share buckets in a power-of-two table. */
+    protected static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Return the smallest power of two >= n (at least 2, at most
+     * MAXIMUM_CAPACITY). */
+    private static int tableSizeFor(int n) {
+        if (n >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        int cap = 2;
+        while (cap < n) {
+            cap *= 2;
+        }
+        return cap;
+    }
 
     // suggested helper method:
     /* check the load factor; if it exceeds 0.8, double the array size
      * (capacity) and rehash values from the old array to the new array */
     private void growIfNeeded() {
         double loadFactor = ((double) getSize())/getCapacity();
-        if (loadFactor > 0.8) {
+        if (loadFactor > 0.8 && getCapacity() < MAXIMUM_CAPACITY) {
+            if (incremental) {
+                // finish any resize still running, then start moving the
+                // current array over a little at a time
+                while (oldBuckets != null) {
+                    migrateStep();
+                }
+                oldBuckets = buckets;
+                migrated = 0;
+                buckets = createBucketArray(getCapacity()*2);
+                return;
+            }
             Pair[] copy = buckets;
-            int oldCapacity = getCapacity();
-            int newCapacity = (getCapacity()*2);
-            
-            this.buckets = createBucketArray(newCapacity);
-            for (int i = 0; i < oldCapacity; i++) {
-                Pair node = copy[i];
-                if (node != null) {
-                    while (node.next != null) {
-                        fastPut(node.key, node.value);
-                        node = node.next;
-                    }
-                    fastPut(node.key, node.value);
+            this.buckets = createBucketArray(getCapacity()*2);
+            for (int i = 0; i < copy.length; i++) {
+                moveBucket(copy, i);
+            }
+        }
+    }
+
+    /* Return the smallest power-of-two capacity holding n mappings at a
+     * load factor of at most 0.8, or MAXIMUM_CAPACITY if none does. The
+     * cast saturates at Integer.MAX_VALUE, which tableSizeFor clamps. */
+    private static int capacityFor(int n) {
+        return tableSizeFor((int) Math.ceil(n / 0.8));
+    }
+
+    /* Move every mapping into a new bucket array of the given power-of-two
+     * capacity, relinking the existing nodes. Any incremental resize in
+     * progress is finished first. Used for shrinking and presizing; plain
+     * doubling uses moveBucket instead. */
+    private void rehash(int capacity) {
+        while (oldBuckets != null) {
+            migrateStep();
+        }
+        modCount++;
+        Pair[] copy = buckets;
+        buckets = createBucketArray(capacity);
+        for (int i = 0; i < copy.length; i++) {
+            Pair node = copy[i];
+            if (node instanceof TreeBin) {
+                node = flatten(((TreeBin) node).root, null);
+            }
+            while (node != null) {
+                Pair next = node.next;
+                int index = node.hash & (capacity - 1);
+                node.next = buckets[index];
+                buckets[index] = node;
+                node = next;
+            }
+        }
+        // merging buckets can make long chains
+        for (int i = 0; i < capacity; i++) {
+            int length = 0;
+            for (Pair node = buckets[i]; node != null; node = node.next) {
+                length++;
+            }
+            if (length > TREEIFY_THRESHOLD) {
+                treeify(buckets, i);
+            }
+        }
+    }
+
+    /* Move the chain in old[i] into buckets, which must be twice as long as
+     * old. Since capacities are powers of two, every node goes to bucket i
+     * or i + old.length depending on one bit of its cached hash, so the
+     * chain is split into those two lists, in order, and each is linked in
+     * front of whatever that bucket already holds. A tree is first flattened
+     * back into a chain of its nodes. Allocates nothing unless a half is
+     * still long enough to be a tree. */
+    private void moveBucket(Pair[] old, int i) {
+        Pair loHead = null, loTail = null, hiHead = null, hiTail = null;
+        int loCount = 0, hiCount = 0;
+        Pair node = old[i];
+        old[i] = null;
+        if (node instanceof TreeBin) {
+            node = flatten(((TreeBin) node).root, null);
+        }
+        while (node != null) {
+            Pair next = node.next;
+            if ((node.hash & old.length) == 0) {
+                if (loTail == null) {
+                    loHead = node;
+                } else {
+                    loTail.next = node;
                 }
+                loTail = node;
+                loCount++;
+            } else {
+                if (hiTail == null) {
+                    hiHead = node;
+                } else {
+                    hiTail.next = node;
+                }
+                hiTail = node;
+                hiCount++;
             }
+            node = next;
+        }
+        if (loTail != null) {
+            loTail.next = null;
+            linkInto(i, loHead, loTail, loCount);
+        }
+        if (hiTail != null) {
+            hiTail.next = null;
+            linkInto(i + old.length, hiHead, hiTail, hiCount);
         }
     }
 
-    //instead of searching the entire array for duplicates, this sets
-    //the newest node as the parent
-    private void fastPut(K key, V value) {
-        int hash = (key.hashCode() % getCapacity());
-        if (hash < 0) {
-            hash = hash * -1;
+    /* Put the chain head..tail of count nodes into buckets[index], in front
+     * of what the bucket already holds (which is only nonempty during an
+     * incremental resize), and treeify the result if it is too long. */
+    private void linkInto(int index, Pair head, Pair tail, int count) {
+        Pair existing = buckets[index];
+        if (existing instanceof TreeBin) {
+            TreeBin bin = (TreeBin) existing;
+            while (head != null) {
+                Pair next = head.next;
+                treeInsert(bin, toTreeNode(head));
+                head = next;
+            }
+            return;
         }
-        Pair node = new Pair(key, value);
-        if (buckets[hash] == null) {
-            buckets[hash] = node;
+        tail.next = existing;
+        buckets[index] = head;
+        for (Pair node = existing; node != null; node = node.next) {
+            count++;
+        }
+        if (count > TREEIFY_THRESHOLD) {
+            treeify(buckets, index);
+        }
+    }
+
+    /* Replace the chain in table[index] by a TreeBin holding its nodes. */
+    private void treeify(Pair[] table, int index) {
+        TreeBin bin = new TreeBin();
+        Pair node = table[index];
+        while (node != null) {
+            Pair next = node.next;
+            treeInsert(bin, toTreeNode(node));
+            node = next;
+        }
+        table[index] = bin;
+    }
+
+    /* Return p as a detached TreeNode, reusing it if it already is one. */
+    private TreeNode toTreeNode(Pair p) {
+        if (p instanceof TreeNode) {
+            TreeNode t = (TreeNode) p;
+            t.next = null;
+            t.left = null;
+            t.right = null;
+            t.height = 1;
+            return t;
+        }
+        return new TreeNode(p.key, p.value, p.hash);
+    }
+
+    /* Return a chain, linked by next, of the nodes of the tree rooted at n
+     * in order, followed by rest. The nodes lose their tree links. */
+    private Pair flatten(TreeNode n, Pair rest) {
+        if (n == null) {
+            return rest;
+        }
+        TreeNode left = n.left;
+        rest = flatten(n.right, rest);
+        n.left = null;
+        n.right = null;
+        n.next = rest;
+        return flatten(left, n);
+    }
+
+    /* Order keys in a tree: by spread hash, then by compareTo when both
+     * keys are of the same Comparable class, then by identity hash code.
+     * Distinct keys can still compare equal (0) in rare cases, so lookups
+     * search both sides of a node that ties. */
+    @SuppressWarnings("unchecked")
+    private int compareKeys(int h, Object key, TreeNode n) {
+        if (h != n.hash) {
+            return h < n.hash ? -1 : 1;
+        }
+        if (key.getClass() == n.key.getClass() && key instanceof Comparable) {
+            int c = ((Comparable<Object>) key).compareTo(n.key);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(System.identityHashCode(key),
+                System.identityHashCode(n.key));
+    }
+
+    /* Return the node for key in the tree rooted at n, or null. */
+    private TreeNode treeFind(TreeNode n, int h, K key) {
+        while (n != null) {
+            int c = compareKeys(h, key, n);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                n = n.right;
+            } else if (n.key == key) {
+                return n;
+            } else {
+                TreeNode found = treeFind(n.left, h, key);
+                if (found != null) {
+                    return found;
+                }
+                n = n.right;
+            }
+        }
+        return null;
+    }
+
+    /* Add node x, whose key is not in the tree, to bin. */
+    private void treeInsert(TreeBin bin, TreeNode x) {
+        bin.root = treeInsert(bin.root, x);
+        bin.count++;
+    }
+
+    /* Insert x into the subtree rooted at n; return the new subtree root. */
+    private TreeNode treeInsert(TreeNode n, TreeNode x) {
+        if (n == null) {
+            return x;
+        }
+        if (compareKeys(x.hash, x.key, n) < 0) {
+            n.left = treeInsert(n.left, x);
         } else {
-            Pair temp = buckets[hash];
-            buckets[hash] = node;
-            node.next = temp;
+            n.right = treeInsert(n.right, x);
+        }
+        return rebalance(n);
+    }
+
+    /* Remove the node for key from the subtree rooted at n, recording it in
+     * bin.removed; return the new subtree root. */
+    private TreeNode treeRemove(TreeBin bin, TreeNode n, int h, K key) {
+        if (n == null) {
+            return null;
+        }
+        int c = compareKeys(h, key, n);
+        if (c < 0) {
+            n.left = treeRemove(bin, n.left, h, key);
+        } else if (c > 0) {
+            n.right = treeRemove(bin, n.right, h, key);
+        } else if (n.key != key) {
+            n.left = treeRemove(bin, n.left, h, key);
+            if (bin.removed == null) {
+                n.right = treeRemove(bin, n.right, h, key);
+            }
+        } else {
+            bin.removed = n;
+            if (n.left == null) {
+                return n.right;
+            }
+            if (n.right == null) {
+                return n.left;
+            }
+            // replace n by the smallest node of its right subtree
+            TreeNode min = n.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = removeMin(n.right);
+            min.left = n.left;
+            n.left = null;
+            n.right = null;
+            n = min;
+        }
+        return rebalance(n);
+    }
+
+    /* Unlink the smallest node of the subtree rooted at n; return the new
+     * subtree root. */
+    private TreeNode removeMin(TreeNode n) {
+        if (n.left == null) {
+            return n.right;
+        }
+        n.left = removeMin(n.left);
+        return rebalance(n);
+    }
+
+    private int height(TreeNode n) {
+        return n == null ? 0 : n.height;
+    }
+
+    /* Restore the AVL balance of n, whose subtrees are balanced and differ
+     * in height by at most 2; return the new subtree root. */
+    private TreeNode rebalance(TreeNode n) {
+        int balance = height(n.left) - height(n.right);
+        if (balance > 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            return rotateRight(n);
+        }
+        if (balance < -1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            return rotateLeft(n);
+        }
+        n.height = Math.max(height(n.left), height(n.right)) + 1;
+        return n;
+    }
+
+    /* Rotate on the edge from x to its right child; return the new root. */
+    private TreeNode rotateLeft(TreeNode x) {
+        TreeNode y = x.right;
+        x.right = y.left;
+        y.left = x;
+        x.height = Math.max(height(x.left), height(x.right)) + 1;
+        y.height = Math.max(height(y.left), height(y.right)) + 1;
+        return y;
+    }
+
+    /* Rotate on the edge from x to its left child; return the new root. */
+    private TreeNode rotateRight(TreeNode x) {
+        TreeNode y = x.left;
+        x.left = y.right;
+        y.right = x;
+        x.height = Math.max(height(x.left), height(x.right)) + 1;
+        y.height = Math.max(height(y.left), height(y.right)) + 1;
+        return y;
+    }
+
+    /* During an incremental resize, move up to MIGRATE_STEP buckets of
+     * oldBuckets into buckets, relinking their nodes rather than copying
+     * them. Does nothing otherwise. */
+    private void migrateStep() {
+        if (oldBuckets == null) {
+            return;
+        }
+        modCount++;
+        int end = Math.min(migrated + MIGRATE_STEP, oldBuckets.length);
+        for (; migrated < end; migrated++) {
+            moveBucket(oldBuckets, migrated);
+        }
+        if (migrated == oldBuckets.length) {
+            oldBuckets = null;
         }
     }
 
@@ -247,9 +1039,23 @@ public class HashTable<K,V> {
     protected void dump() {
         System.out.println("Table size: " + getSize() + " capacity: " +
                 getCapacity());
-        for (int i = 0; i < buckets.length; i++) {
+        dumpBuckets(buckets);
+        if (oldBuckets != null) {
+            System.out.println("Old buckets still being moved:");
+            dumpBuckets(oldBuckets);
+        }
+    }
+
+    /* print each bucket of table for dump */
+    private void dumpBuckets(Pair[] table) {
+        for (int i = 0; i < table.length; i++) {
             System.out.print(i + ": --");
-            Pair node = buckets[i];
+            Pair node = table[i];
+            if (node instanceof TreeBin) {
+                System.out.print(">" + node + "--");
+                dumpTree(((TreeBin) node).root);
+                node = null;
+            }
             while (node != null) {
                 System.out.print(">" + node + "--");
                 node = node.next;
@@ -259,6 +1065,15 @@ public class HashTable<K,V> {
         }
     }
 
+    /* print the nodes of a treeified bucket in order for dump */
+    private void dumpTree(TreeNode n) {
+        if (n != null) {
+            dumpTree(n.left);
+            System.out.print(">" + n + "--");
+            dumpTree(n.right);
+        }
+    }
+
     /*  Create and return a bucket array with the specified size, initializing
      *  each element of the bucket array to be an empty LinkedList of Pairs.
      *  The casting and warning suppression is necessary because generics and
@@ -267,4 +1082,11 @@ public class HashTable<K,V> {
     protected Pair[] createBucketArray(int size) {
         return (Pair[]) new HashTable<?,?>.Pair[size];
     }
+
+    /*  Create and return a TreeNode array of the given size, for the same
+     *  reason. */
+    @SuppressWarnings("unchecked")
+    private TreeNode[] createTreeNodeArray(int size) {
+        return (TreeNode[]) new HashTable<?,?>.TreeNode[size];
+    }
 }
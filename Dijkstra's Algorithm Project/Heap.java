@@ -1,8 +1,16 @@
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** An instance is a min-heap of distinct values of type V with
  *  priorities of type P. Since it's a min-heap, the value
- *  with the smallest priority is at the root of the heap. */
+ *  with the smallest priority is at the root of the heap.
+ *  A heap made with Heap(true) is a max-heap instead: every comparison
+ *  is reversed, so the value with the largest priority is at the root and
+ *  "smaller" below means "larger". */
 public final class Heap<V, P extends Comparable<P>> {
 
     // Read and understand the class invariants given in the
@@ -31,15 +39,50 @@ public final class Heap<V, P extends Comparable<P>> {
      *     4. map contains one entry for each element of the heap, so
      *        map.size() == c.size()
      *     5. For each value v in the heap, its map entry contains in the
-     *        the index of v in c. Thus: map.get(b[i]) = i.
+     *        the index of v in c. Thus: map.getInt(b[i]) = i.
+     *
+     *   map stores positions as primitive ints, so keeping it up to date
+     *   in swap boxes and allocates nothing.
      */
     protected AList<Entry> c;
-    protected HashTable<V, Integer> map;
+    protected ObjectIntHashTable<V> map;
+    private final boolean max; // true if this is a max-heap
+    private HeapMetrics metrics; // operation counters; null unless enabled
 
     /** Constructor: an empty heap with capacity 10. */
     public Heap() {
+        this(false);
+    }
+
+    /** Constructor: an empty heap with capacity 10. It is a max-heap if
+     *  max is true, a min-heap otherwise. */
+    public Heap(boolean max) {
         c = new AList<Entry>(10);
-        map = new HashTable<V, Integer>();
+        map = new ObjectIntHashTable<V>();
+        this.max = max;
+    }
+
+    /* Compare priorities in this heap's order: negative if a belongs above
+     * b, positive if b belongs above a. */
+    private int compare(P a, P b) {
+        return max ? b.compareTo(a) : a.compareTo(b);
+    }
+
+    /** Start counting sifts, swaps, map traffic and changePriority
+     *  directions, sampling the size of the heap every sampleInterval
+     *  operations. Any previous counts are discarded. */
+    public void enableMetrics(int sampleInterval) {
+        metrics = new HeapMetrics(sampleInterval);
+    }
+
+    /** Stop counting. Metrics are off by default. */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /** Return a snapshot of the counters, or null if metrics are off. */
+    public HeapMetrics.Snapshot getMetrics() {
+        return metrics == null ? null : metrics.snapshot();
     }
 
     /** An Entry contains a value and a priority. */
@@ -66,10 +109,18 @@ public final class Heap<V, P extends Comparable<P>> {
     public void add(V v, P p) throws IllegalArgumentException {
         Entry current = new Entry(v, p);
         c.append(current);
-        if (map.put(v, size() - 1) != null) {
+        if (map.putInt(v, size() - 1) != ObjectIntHashTable.DEFAULT_ABSENT) {
             throw new IllegalArgumentException();
         }
-        bubbleUp(size() - 1);
+        if (metrics == null) {
+            bubbleUp(size() - 1);
+        } else {
+            metrics.mapPuts++;
+            metrics.beginSift();
+            bubbleUp(size() - 1);
+            metrics.endSiftUp();
+            metrics.operation(size());
+        }
         
         // Write this whole method. Note that bubbleUp is not implemented,
         // so calling it will have no effect. The first tests of add, using
@@ -95,8 +146,12 @@ public final class Heap<V, P extends Comparable<P>> {
         c.put(h, child);
         c.put(k, parent);
 
-        map.put(child.value, h);
-        map.put(parent.value, k);
+        map.putInt(child.value, h);
+        map.putInt(parent.value, k);
+        if (metrics != null) {
+            metrics.swaps++;
+            metrics.mapPuts += 2;
+        }
 
 
         //When bubbling values up and down (later on), two values,
@@ -120,8 +175,11 @@ public final class Heap<V, P extends Comparable<P>> {
         //     throw new UnsupportedOperationException();
         // }
 
-        if (parent.priority.compareTo(child.priority) > 0) {
+        if (compare(parent.priority, child.priority) > 0) {
             swap(((k - 1)/2), k);
+            if (metrics != null) {
+                metrics.siftLevel();
+            }
             bubbleUp((k - 1)/2); 
         } else {
             return;
@@ -144,6 +202,16 @@ public final class Heap<V, P extends Comparable<P>> {
         //         test120Peek will not find errors if this is correct.
     }
 
+    /** Return the priority of the value that peek() would return. Do not
+     *  change the heap. This operation takes constant time.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public P peekPriority() throws NoSuchElementException {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return c.get(0).priority;
+    }
+
     /** Remove and return the element of this heap with lowest priority.
      *  The expected time is logarithmic and the worst-case time is linear
      *  in the size of the heap.
@@ -154,17 +222,30 @@ public final class Heap<V, P extends Comparable<P>> {
         }
         if (size() == 1) {
             V returnThis = c.pop().value;
-            map.remove(returnThis);
+            map.removeInt(returnThis);
+            if (metrics != null) {
+                metrics.mapRemoves++;
+                metrics.operation(0);
+            }
             return returnThis;
         }
         V returnThis = c.get(0).value;
-        map.remove(returnThis);
+        map.removeInt(returnThis);
         Entry temp = c.pop();
         
         c.put(0, temp);
-        map.put(temp.value, 0);
+        map.putInt(temp.value, 0);
 
-        bubbleDown(0);
+        if (metrics == null) {
+            bubbleDown(0);
+        } else {
+            metrics.mapRemoves++;
+            metrics.mapPuts++;
+            metrics.beginSift();
+            bubbleDown(0);
+            metrics.endSiftDown();
+            metrics.operation(size());
+        }
         return returnThis;  
 
         // Do poll (1.5) and bubbleDown (1.6) together. When they
@@ -192,10 +273,13 @@ public final class Heap<V, P extends Comparable<P>> {
             return;
         }
         Entry child = c.get(childIndex);
-        if (parent.priority.compareTo(child.priority) == 0) {
+        if (compare(parent.priority, child.priority) == 0) {
             return;
-        } else if (parent.priority.compareTo(child.priority) > 0) {
+        } else if (compare(parent.priority, child.priority) > 0) {
             swap(k, childIndex);
+            if (metrics != null) {
+                metrics.siftLevel();
+            }
             bubbleDown(childIndex);
         }
 
@@ -219,7 +303,7 @@ public final class Heap<V, P extends Comparable<P>> {
         } else {
             Entry leftChild = c.get(2*k + 1);
             Entry rightChild = c.get(2*k + 2);
-            if (leftChild.priority.compareTo(rightChild.priority) < 0) {
+            if (compare(leftChild.priority, rightChild.priority) < 0) {
                 return (2*k + 1);
             } 
             return (2*k + 2);
@@ -233,17 +317,29 @@ public final class Heap<V, P extends Comparable<P>> {
         return map.containsKey(v);
     }
 
+    /** Return the priority of value v.
+     *  @throws IllegalArgumentException if v is not in the heap. */
+    public P getPriority(V v) throws IllegalArgumentException {
+        int index = map.getInt(v);
+        if (index < 0) {
+            throw new IllegalArgumentException();
+        }
+        return c.get(index).priority;
+    }
+
     /** Change the priority of value v to p.
      *  The expected time is logarithmic and the worst-case time is linear
      *  in the size of the heap.
      *  @throws IllegalArgumentException if v is not in the heap. */
     public void changePriority(V v, P p) throws IllegalArgumentException {
-        Integer index = map.get(v);
-        if (index == null) {
+        int index = map.getInt(v);
+        if (index < 0) {
             throw new IllegalArgumentException();
         }
         Entry modified = c.get(index);      
-        if (modified.priority.compareTo(p) > 0) {
+        if (metrics != null) {
+            changePriorityCounted(modified, index, p);
+        } else if (compare(modified.priority, p) > 0) {
             modified.priority = p;
             bubbleUp(index);
         } else {
@@ -256,4 +352,76 @@ public final class Heap<V, P extends Comparable<P>> {
         // the heap.
         
     }
+
+    /* changePriority with metrics enabled, kept apart so the common path
+     * stays as short as before. */
+    private void changePriorityCounted(Entry modified, int index, P p) {
+        metrics.beginSift();
+        if (compare(modified.priority, p) > 0) {
+            metrics.changePriorityUps++;
+            modified.priority = p;
+            bubbleUp(index);
+            metrics.endSiftUp();
+        } else {
+            metrics.changePriorityDowns++;
+            modified.priority = p;
+            bubbleDown(index);
+            metrics.endSiftDown();
+        }
+        metrics.operation(size());
+    }
+
+    /** Return a stream that lazily removes and yields the values of this
+     *  heap in priority order, one poll per element consumed. The stream
+     *  drains the heap: values it yields are no longer in the heap. Taking
+     *  only the first k elements costs O(k log n). */
+    public Stream<V> sortedStream() {
+        Spliterator<V> s = new Spliterators.AbstractSpliterator<V>(size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT
+                | Spliterator.NONNULL) {
+            public boolean tryAdvance(Consumer<? super V> action) {
+                if (size() == 0) {
+                    return false;
+                }
+                action.accept(poll());
+                return true;
+            }
+        };
+        return StreamSupport.stream(s, false);
+    }
+
+    /** Sort a into ascending order in place with heapsort: a max-heap is
+     *  built bottom-up inside a itself, then its root is repeatedly swapped
+     *  to the end of the shrinking heap. O(n log n) time, O(1) extra space.
+     *  Precondition: no element of a is null. */
+    public static <T extends Comparable<T>> void heapSort(AList<T> a) {
+        int n = a.size();
+        for (int k = n/2 - 1; k >= 0; k--) {
+            siftDown(a, k, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            T top = a.get(0);
+            a.put(0, a.get(end));
+            a.put(end, top);
+            siftDown(a, 0, end);
+        }
+    }
+
+    /* Sift a[k] down within the max-heap a[0..n-1]. */
+    private static <T extends Comparable<T>> void siftDown(AList<T> a, int k,
+            int n) {
+        T x = a.get(k);
+        while (2*k + 1 < n) {
+            int child = 2*k + 1;
+            if (child + 1 < n && a.get(child + 1).compareTo(a.get(child)) > 0) {
+                child++;
+            }
+            if (a.get(child).compareTo(x) <= 0) {
+                break;
+            }
+            a.put(k, a.get(child));
+            k = child;
+        }
+        a.put(k, x);
+    }
 }
@@ -0,0 +1,14 @@
+/** A lower bound on shortest path lengths, for goal-directed (A*) search
+ * with ShortestPaths.compute(origin, destination, heuristic).
+ *
+ * lowerBound(v, target) must never exceed the length of the shortest path
+ * from v to target (the heuristic is admissible), or A* may return a path
+ * that is not shortest. A* settles fewest nodes when the heuristic is also
+ * consistent: lowerBound(u, t) <= weight(u, v) + lowerBound(v, t) for every
+ * edge u->v. */
+public interface Heuristic {
+
+    /** Return a lower bound on the length of the shortest path from v to
+     * target; 0 is always allowed. */
+    double lowerBound(Node v, Node target);
+}
@@ -0,0 +1,157 @@
+import java.util.NoSuchElementException;
+
+/** A min-heap of int ids in 0..capacity-1 with double priorities: Heap
+ *  specialized to the dense ids of a FrozenGraph. The tree is two parallel
+ *  arrays of ids and priorities, and the position of each id is kept in an
+ *  int array indexed by id, so contains and changePriority need no hashing
+ *  and nothing is boxed or allocated after construction. */
+public final class IndexedDoubleHeap {
+
+    private static final int ABSENT = -1;
+
+    /**
+     * ids[0..size-1] and keys[0..size-1] hold a complete binary tree laid out
+     * like Heap's c: slot i's children are slots 2i+1 and 2i+2.
+     *
+     * Class Invariants:
+     *   1. If slot i has a parent, the parent's key is <= keys[i].
+     *   2. pos[v] is the slot holding id v if v is in the heap, and ABSENT
+     *      otherwise.
+     */
+    private final int[] ids;
+    private final double[] keys;
+    private final int[] pos;
+    private int size;
+
+    /** Constructor: an empty heap for ids 0..capacity-1. */
+    public IndexedDoubleHeap(int capacity) {
+        ids = new int[capacity];
+        keys = new double[capacity];
+        pos = new int[capacity];
+        for (int v = 0; v < capacity; v++) {
+            pos[v] = ABSENT;
+        }
+    }
+
+    /** Return the number of ids in this heap. */
+    public int size() {
+        return size;
+    }
+
+    /** Return true if id v is in the heap. Constant time. */
+    public boolean contains(int v) {
+        return pos[v] != ABSENT;
+    }
+
+    /** Add id v with priority p. Logarithmic time.
+     *  @throws IllegalArgumentException if v is already in the heap. */
+    public void add(int v, double p) throws IllegalArgumentException {
+        if (contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        size++;
+        siftUp(size - 1, v, p);
+    }
+
+    /** Return the id with lowest priority without removing it.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public int peek() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return ids[0];
+    }
+
+    /** Return the lowest priority in the heap.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public double peekPriority() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0];
+    }
+
+    /** Remove and return the id with lowest priority. Logarithmic time.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public int poll() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int v = ids[0];
+        pos[v] = ABSENT;
+        size--;
+        if (size > 0) {
+            siftDown(0, ids[size], keys[size]);
+        }
+        return v;
+    }
+
+    /** Return the priority of id v.
+     *  @throws IllegalArgumentException if v is not in the heap. */
+    public double getPriority(int v) throws IllegalArgumentException {
+        if (!contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        return keys[pos[v]];
+    }
+
+    /** Change the priority of id v to p. Logarithmic time.
+     *  @throws IllegalArgumentException if v is not in the heap. */
+    public void changePriority(int v, double p)
+        throws IllegalArgumentException {
+        if (!contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        int k = pos[v];
+        if (p < keys[k]) {
+            siftUp(k, v, p);
+        } else {
+            siftDown(k, v, p);
+        }
+    }
+
+    /** Remove every id, in time proportional to the current size rather
+     *  than the capacity, so one heap can be reused across searches. */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[ids[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /* Place (v, p) at slot k or above, moving larger parents down. */
+    private void siftUp(int k, int v, double p) {
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (keys[parent] <= p) {
+                break;
+            }
+            set(k, ids[parent], keys[parent]);
+            k = parent;
+        }
+        set(k, v, p);
+    }
+
+    /* Place (v, p) at slot k or below, moving smaller children up. As in
+     * Heap, ties between the children go to the right child. */
+    private void siftDown(int k, int v, double p) {
+        while (2 * k + 1 < size) {
+            int child = 2 * k + 1;
+            if (child + 1 < size && keys[child] >= keys[child + 1]) {
+                child++;
+            }
+            if (keys[child] >= p) {
+                break;
+            }
+            set(k, ids[child], keys[child]);
+            k = child;
+        }
+        set(k, v, p);
+    }
+
+    private void set(int k, int v, double p) {
+        ids[k] = v;
+        keys[k] = p;
+        pos[v] = k;
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Compares A* with LandmarkHeuristic (ALT) against Dijkstra's algorithm (A*
+ * with the zero heuristic) on random node pairs of a graph file. For each
+ * pair both must report the same length, and the ALT path must add up to
+ * it. Prints the preprocessing time, then the mean number of frontier polls
+ * and the mean time per query of each.
+ *
+ * If a TABLES file is given and exists, the landmark tables are loaded from
+ * it instead of computed; if it does not exist they are computed and saved
+ * there, so later runs skip the preprocessing.
+ * Usage: java LandmarkBenchmark basic|db1b FILE [landmarks] [pairs] [TABLES] */
+public class LandmarkBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        Graph graph = ShortestPaths.parseGraph(args[0], args[1]);
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int pairs = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        File tables = args.length > 4 ? new File(args[4]) : null;
+        graph.report();
+        ArrayList<Node> nodes = new ArrayList<Node>(graph.getNodes().values());
+        Random rnd = new Random(42);
+
+        long start = System.nanoTime();
+        LandmarkHeuristic alt;
+        if (tables != null && tables.exists()) {
+            alt = new LandmarkHeuristic(tables);
+            System.out.println("loaded " + alt.getLandmarks().size()
+                    + " landmarks in " + (System.nanoTime() - start) / 1e6
+                    + " ms");
+        } else {
+            alt = new LandmarkHeuristic(graph, k);
+            System.out.println("chose " + k + " landmarks in "
+                    + (System.nanoTime() - start) / 1e6 + " ms");
+            if (tables != null) {
+                alt.save(tables);
+            }
+        }
+        Heuristic zero = new ZeroHeuristic();
+
+        ShortestPaths dijkstra = new ShortestPaths();
+        ShortestPaths astar = new ShortestPaths();
+        long dijkstraPolls = 0;
+        long altPolls = 0;
+        long dijkstraTime = 0;
+        long altTime = 0;
+        int failures = 0;
+        for (int q = 0; q < pairs; q++) {
+            Node s = nodes.get(rnd.nextInt(nodes.size()));
+            Node t = nodes.get(rnd.nextInt(nodes.size()));
+            start = System.nanoTime();
+            dijkstra.compute(s, t, zero);
+            long mid = System.nanoTime();
+            astar.compute(s, t, alt);
+            long end = System.nanoTime();
+            dijkstraTime += mid - start;
+            altTime += end - mid;
+            dijkstraPolls += dijkstra.pollCount();
+            altPolls += astar.pollCount();
+
+            double expected = dijkstra.shortestPathLength(t);
+            double length = astar.shortestPathLength(t);
+            double walked = BidirectionalBenchmark.pathLength(
+                    astar.shortestPath(t), s, t);
+            if (!BidirectionalBenchmark.close(expected, length)
+                    || !BidirectionalBenchmark.close(length, walked)) {
+                failures++;
+                System.out.println("mismatch " + s + " -> " + t + ": "
+                        + expected + " vs " + length);
+            }
+        }
+        System.out.println("Dijkstra:        " + dijkstraPolls / pairs
+                + " polls, " + dijkstraTime / 1e3 / pairs + " us per query");
+        System.out.println("A* (landmarks):  " + altPolls / pairs
+                + " polls, " + altTime / 1e3 / pairs + " us per query");
+        System.out.println(failures == 0 ? "all " + pairs + " pairs agree"
+                : failures + " pairs differ");
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/** A heuristic for graphs without coordinates (ALT: A*, landmarks and the
+ * triangle inequality). A few landmark nodes L are chosen, and the lengths
+ * d(L, v) and d(v, L) of the shortest paths from and to every node v are
+ * precomputed. For any target t the triangle inequality gives
+ *   d(v, t) >= d(L, t) - d(L, v)   and   d(v, t) >= d(v, L) - d(t, L),
+ * and the largest of these over all landmarks is the bound. It is
+ * consistent, so A* never reopens a settled node.
+ *
+ * Landmarks are chosen by farthest selection: each one is the node farthest
+ * from those already chosen, so they end up spread around the edge of the
+ * graph, where they give the tightest bounds for the most pairs. Nodes
+ * unreachable from every landmark so far count as farthest, which puts a
+ * landmark in each part of a disconnected graph.
+ *
+ * Preprocessing runs 2k full Dijkstra searches, so the tables can be saved
+ * to a text file and loaded again later. Each line of the file holds
+ *  ID F1 ... Fk B1 ... Bk
+ * for one node, where Fi = d(Li, ID) and Bi = d(ID, Li), "Infinity" where
+ * there is no path; the first line is "landmarks" followed by the landmark
+ * ids, and lines starting with # are ignored. Nodes without distances get
+ * the bound 0, so tables from an older version of a graph still give
+ * correct (if slower) searches as long as no path has become shorter.
+ * Sample usage:
+ *   LandmarkHeuristic h = new LandmarkHeuristic(g, 16);
+ *   h.save(new File("landmarks.txt"));
+ *   sp.compute(g.getNode("ITH"), g.getNode("SEA"), h); */
+public class LandmarkHeuristic implements Heuristic {
+
+    private final ArrayList<String> landmarks;
+    // maps node ids to {d(L1, v), ..., d(Lk, v), d(v, L1), ..., d(v, Lk)}
+    private final HashMap<String, double[]> distances;
+
+    /** Constructor: choose k landmarks in graph and compute their distance
+     * tables. Takes 2k runs of Dijkstra's algorithm over the whole graph.
+     * @throws IllegalArgumentException unless 0 < k <= number of nodes */
+    public LandmarkHeuristic(Graph graph, int k) {
+        int n = graph.getNodes().size();
+        if (k <= 0 || k > n) {
+            throw new IllegalArgumentException("bad landmark count " + k);
+        }
+        landmarks = new ArrayList<String>();
+        distances = new HashMap<String, double[]>();
+        for (String id : graph.getNodes().keySet()) {
+            distances.put(id, new double[2 * k]);
+        }
+        Graph reverse = graph.reverse();
+        ShortestPaths sp = new ShortestPaths();
+
+        // start from the node farthest from an arbitrary one
+        HashMap<String, Double> nearest = new HashMap<String, Double>();
+        Node start = graph.getNodes().values().iterator().next();
+        sp.compute(start);
+        for (Node v : graph.getNodes().values()) {
+            nearest.put(v.getId(), distance(sp, v));
+        }
+        for (int i = 0; i < k; i++) {
+            String landmark = farthest(nearest);
+            landmarks.add(landmark);
+            sp.compute(graph.getNode(landmark));
+            for (Node v : graph.getNodes().values()) {
+                double d = distance(sp, v);
+                distances.get(v.getId())[i] = d;
+                // the first landmark replaces the arbitrary start
+                if (i == 0 || d < nearest.get(v.getId())) {
+                    nearest.put(v.getId(), d);
+                }
+            }
+            sp.compute(reverse.getNode(landmark));
+            for (Node v : reverse.getNodes().values()) {
+                distances.get(v.getId())[k + i] = distance(sp, v);
+            }
+        }
+    }
+
+    /** Constructor: load landmark tables written by save.
+     * @throws FileNotFoundException if file cannot be opened
+     * @throws IllegalArgumentException if the file is malformed */
+    public LandmarkHeuristic(File file) throws FileNotFoundException {
+        landmarks = new ArrayList<String>();
+        distances = new HashMap<String, double[]>();
+        Scanner sc = new Scanner(file);
+        try {
+            boolean header = true;
+            while (sc.hasNextLine()) {
+                String line = sc.nextLine().trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] data = line.split("\\s+");
+                if (header) {
+                    if (!data[0].equals("landmarks") || data.length < 2) {
+                        throw new IllegalArgumentException(
+                                "Bad landmarks line: " + line);
+                    }
+                    for (int i = 1; i < data.length; i++) {
+                        landmarks.add(data[i]);
+                    }
+                    header = false;
+                    continue;
+                }
+                if (data.length != 1 + 2 * landmarks.size()) {
+                    throw new IllegalArgumentException(
+                            "Bad distances line: " + line);
+                }
+                double[] d = new double[2 * landmarks.size()];
+                for (int i = 0; i < d.length; i++) {
+                    d[i] = Double.parseDouble(data[i + 1]);
+                }
+                distances.put(data[0], d);
+            }
+        } finally {
+            sc.close();
+        }
+        if (landmarks.isEmpty()) {
+            throw new IllegalArgumentException("No landmarks line");
+        }
+    }
+
+    /** Write the landmark tables to file, in the format the File
+     * constructor reads.
+     * @throws FileNotFoundException if file cannot be opened for writing */
+    public void save(File file) throws FileNotFoundException {
+        PrintWriter out = new PrintWriter(file);
+        try {
+            out.print("landmarks");
+            for (String landmark : landmarks) {
+                out.print(" " + landmark);
+            }
+            out.println();
+            for (Map.Entry<String, double[]> entry : distances.entrySet()) {
+                StringBuilder line = new StringBuilder(entry.getKey());
+                for (double d : entry.getValue()) {
+                    line.append(' ').append(d);
+                }
+                out.println(line);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Return the ids of the landmarks, in the order they were chosen */
+    public ArrayList<String> getLandmarks() {
+        return new ArrayList<String>(landmarks);
+    }
+
+    /** Return the largest triangle-inequality bound on the distance from v
+     * to target over all landmarks, or 0 if either has no distances. */
+    @Override
+    public double lowerBound(Node v, Node target) {
+        double[] a = distances.get(v.getId());
+        double[] b = distances.get(target.getId());
+        if (a == null || b == null) {
+            return 0;
+        }
+        int k = landmarks.size();
+        double bound = 0;
+        for (int i = 0; i < 2 * k; i++) {
+            // forward: d(L, t) - d(L, v); backward: d(v, L) - d(t, L).
+            // Terms with an unreachable end give no bound, and are skipped.
+            double d = i < k ? b[i] - a[i] : a[i] - b[i];
+            if (d > bound && d != Double.POSITIVE_INFINITY) {
+                bound = d;
+            }
+        }
+        return bound;
+    }
+
+    /* Return the distance sp found to v, or infinity if v is unreachable. */
+    private static double distance(ShortestPaths sp, Node v) {
+        double d = sp.shortestPathLength(v);
+        return d < 0 ? Double.POSITIVE_INFINITY : d;
+    }
+
+    /* Return the id whose distance in nearest is largest. */
+    private static String farthest(HashMap<String, Double> nearest) {
+        String best = null;
+        double bestDistance = -1;
+        for (Map.Entry<String, Double> entry : nearest.entrySet()) {
+            if (entry.getValue() > bestDistance) {
+                best = entry.getKey();
+                bestDistance = entry.getValue();
+            }
+        }
+        return best;
+    }
+}
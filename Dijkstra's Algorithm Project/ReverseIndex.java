@@ -0,0 +1,40 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/** The reverse adjacency of a Graph: for each node, the nodes with an edge
+ * to it and the weights of those edges. Node only records its outgoing
+ * edges, so searches that run backward from a destination build one of
+ * these first. Like FrozenGraph, it is a snapshot: later changes to the
+ * graph are not reflected. */
+public class ReverseIndex {
+
+    // maps v -> (u -> weight of the edge from u to v), for every edge u->v
+    private final HashMap<Node, HashMap<Node, Double>> incoming;
+
+    /** Constructor: index the edges of graph. Takes time proportional to
+     * the number of edges. */
+    public ReverseIndex(Graph graph) {
+        incoming = new HashMap<Node, HashMap<Node, Double>>();
+        for (Node u : graph.getNodes().values()) {
+            for (Map.Entry<Node, Double> edge : u.getNeighbors().entrySet()) {
+                HashMap<Node, Double> in = incoming.get(edge.getKey());
+                if (in == null) {
+                    in = new HashMap<Node, Double>();
+                    incoming.put(edge.getKey(), in);
+                }
+                in.put(u, edge.getValue());
+            }
+        }
+    }
+
+    /** Return a read-only map from each node with an edge to v to the weight
+     * of that edge; empty if there are none. */
+    public Map<Node, Double> getIncoming(Node v) {
+        HashMap<Node, Double> in = incoming.get(v);
+        if (in == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(in);
+    }
+}
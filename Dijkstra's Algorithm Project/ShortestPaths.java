@@ -21,11 +21,19 @@ import java.util.*;
  *   Node b = g.getNode("B");
  *   LinkedList<Node> abPath = sp.getShortestPath(b);
  *   double abPathLength = sp.getShortestPathLength(b);
+ * When only one destination matters, sp.compute(a, b) stops as soon as b's
+ * shortest path is known, and sp.computeWithin(a, r) finds only the nodes
+ * within distance r of a, so their cost depends on how much of the graph
+ * is that close rather than on the size of the whole graph.
+ * sp.compute(a, b, h) is A* search: it orders the frontier by distance from
+ * a plus h's lower bound on the distance left to b, so it settles mostly
+ * nodes in the direction of b.
  *   */
 public class ShortestPaths {
     // stores auxiliary data associated with each node for the shortest
     // paths computation:
     private HashMap<Node,PathData> paths;
+    private int polls; // frontier polls made by the last compute
 
     /** Compute the shortest path to all nodes from origin using Dijkstra's
      * algorithm. Fill in the paths field, which associates each Node with its
@@ -33,32 +41,109 @@ public class ShortestPaths {
      * backpointer to the previous node on the shortest path.
      * Precondition: origin is a node in the Graph.*/
     public void compute(Node origin) {
+        search(origin, null, Double.POSITIVE_INFINITY, null);
+    }
+
+    /** Compute the shortest path from origin to destination, stopping as
+     * soon as destination is settled. Afterwards shortestPath and
+     * shortestPathLength are correct for destination and for every node
+     * settled before it, which includes every node strictly closer to
+     * origin; other nodes are reported as unreachable.
+     * Precondition: origin and destination are nodes in the Graph.*/
+    public void compute(Node origin, Node destination) {
+        search(origin, destination, Double.POSITIVE_INFINITY, null);
+    }
+
+    /** Compute the shortest path from origin to destination by A* search
+     * with the given heuristic, stopping as soon as destination is settled.
+     * Afterwards shortestPath and shortestPathLength are correct for
+     * destination; other nodes may be reported with longer distances, or
+     * as unreachable.
+     * Precondition: origin and destination are nodes in the Graph, and
+     * heuristic never overestimates the distance to destination. */
+    public void compute(Node origin, Node destination, Heuristic heuristic) {
+        search(origin, destination, Double.POSITIVE_INFINITY, heuristic);
+    }
+
+    /** Compute the shortest paths from origin to the nodes at distance at
+     * most radius from it. Nodes farther away are not explored and are
+     * reported as unreachable.
+     * Precondition: origin is a node in the Graph.*/
+    public void computeWithin(Node origin, double radius) {
+        search(origin, null, radius, null);
+    }
+
+    /* Run Dijkstra's algorithm from origin until the frontier is empty,
+     * destination (if not null) is settled, or the closest frontier node is
+     * farther than radius. With a heuristic, frontier priorities are
+     * distance plus heuristic's estimate of the rest of the way to
+     * destination (A*), and a settled node that is reached by a shorter path
+     * later, which only an inconsistent heuristic allows, goes back into the
+     * frontier. If it stops early, drop the tentative PathData of the nodes
+     * still in the frontier so that only settled nodes have paths entries. */
+    private void search(Node origin, Node destination, double radius,
+            Heuristic heuristic) {
         paths = new HashMap<Node,PathData>();
+        polls = 0;
         HashSet<Node> settled = new HashSet <Node> ();
         Heap<Node, Double> frontier = new Heap<Node, Double>();
         paths.put(origin, new PathData(0, null));
-        frontier.add(origin, 0.0);
+        frontier.add(origin, estimate(heuristic, origin, destination));
         while (frontier.size() != 0) {
+            if (frontier.peekPriority() > radius) {
+                break;
+            }
             Node f = frontier.poll();
+            polls++;
             settled.add(f);
+            if (f.equals(destination)) {
+                break;
+            }
             HashMap<Node, Double> neighbors = f.getNeighbors();
             Set<Node> keys = neighbors.keySet();
             for (Node w : keys) {
                 double fDistance = paths.get(f).distance;
                 double wDistance = neighbors.get(w);
+                double priority = fDistance + wDistance
+                    + estimate(heuristic, w, destination);
                 if (!settled.contains(w) && !frontier.contains(w)) {
                     PathData addThis = new PathData(fDistance + wDistance, f);
                     paths.put(w, addThis);
-                    frontier.add(w, fDistance + wDistance);
+                    frontier.add(w, priority);
                 } else if (fDistance + wDistance < paths.get(w).distance) {
                     if (frontier.contains(w)) {
-                        frontier.changePriority(w, fDistance + wDistance);
+                        frontier.changePriority(w, priority);
+                    } else {
+                        settled.remove(w);
+                        frontier.add(w, priority);
                     }
                     PathData addThis = new PathData(fDistance + wDistance, f);
                     paths.put(w, addThis);
                 }
             }
         }
+        if (frontier.size() != 0) {
+            paths.keySet().retainAll(settled);
+        }
+    }
+
+    /* Return heuristic's lower bound on the distance from v to destination,
+     * or 0 if there is no heuristic. */
+    private static double estimate(Heuristic heuristic, Node v,
+            Node destination) {
+        return heuristic == null ? 0 : heuristic.lowerBound(v, destination);
+    }
+
+    /** Returns the number of frontier polls made by the last compute. */
+    public int pollCount() {
+        return polls;
+    }
+
+    /** Returns the number of nodes whose shortest paths the last compute
+     * determined: the nodes it settled, or with a full compute, every node
+     * reachable from the origin. */
+    public int settledCount() {
+        return paths.size();
     }
 
     /** Returns the length of the shortest path from the origin to destination.
@@ -133,9 +218,14 @@ public class ShortestPaths {
 
 
         String destCode = null;
-        if (args.length == 4) {
+        if (args.length >= 4) {
             destCode = args[3];
         }
+        // optional coordinates file: search with A* instead of Dijkstra
+        String coordsName = null;
+        if (args.length >= 5) {
+            coordsName = args[4];
+        }
 
         //parse a graph with the given type and filename
         Graph graph;
@@ -145,10 +235,20 @@ public class ShortestPaths {
             System.out.println("Could not open file " + fileName);
             return;
         }
+        Heuristic heuristic = new ZeroHeuristic();
+        if (coordsName != null) {
+            try {
+                heuristic = new GreatCircleHeuristic(new File(coordsName));
+            } catch (FileNotFoundException e) {
+                System.out.println("Could not open file " + coordsName);
+                return;
+            }
+        }
         graph.report();
         ShortestPaths test = new ShortestPaths();
-        test.compute(graph.getNode(origCode));
-        if (destCode != null) {  
+        if (destCode != null) {
+            test.compute(graph.getNode(origCode), graph.getNode(destCode),
+                    heuristic);
             LinkedList<Node> list = test.shortestPath(graph.getNode(destCode));
             while (list.size() != 0) {
                 Node head = list.poll();
@@ -161,6 +261,7 @@ public class ShortestPaths {
                 System.out.print(pathLength);
             }
         } else {
+            test.compute(graph.getNode(origCode));
             System.out.println("Shortest Paths From " + origCode + ":");
             for (Node key : test.paths.keySet()) {
                 System.out.println(key + ": " + test.paths.get(key).distance);
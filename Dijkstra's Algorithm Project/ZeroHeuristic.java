@@ -0,0 +1,11 @@
+/** The heuristic that knows nothing: every bound is 0. A* with it settles
+ * the same nodes as Dijkstra's algorithm, so it is the fallback when a
+ * graph has no coordinates or other distance information. */
+public class ZeroHeuristic implements Heuristic {
+
+    /** Return 0 */
+    @Override
+    public double lowerBound(Node v, Node target) {
+        return 0;
+    }
+}
@@ -0,0 +1,88 @@
+/** Compares IntAList against AList<Integer> on the same int workload:
+* appending n values, summing them with get, appending them all again in
+* bulk, and popping everything. Each test runs twice and the second,
+* warmed-up run is reported.
+* Usage: java AListBenchmark [n] */
+public class AListBenchmark {
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+    int[] values = new int[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = i * 31;
+    }
+    runBoxed(values);
+    runPrimitive(values);
+    System.out.println("n = " + n);
+    System.out.println("  AList<Integer> " + runBoxed(values));
+    System.out.println("  IntAList       " + runPrimitive(values));
+  }
+
+  private static String runBoxed(int[] values) {
+    int n = values.length;
+    long start = System.nanoTime();
+    AList<Integer> list = new AList<Integer>();
+    for (int i = 0; i < n; i++) {
+      list.append(values[i]);
+    }
+    long append = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    long sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += list.get(i);
+    }
+    long get = System.nanoTime() - start;
+
+    // AList has no bulk append, so this is the loop callers write today
+    start = System.nanoTime();
+    for (int i = 0; i < n; i++) {
+      list.append(values[i]);
+    }
+    long addAll = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    while (list.size() > 0) {
+      sum -= list.pop();
+    }
+    long pop = System.nanoTime() - start;
+    return report(n, append, get, addAll, pop, sum);
+  }
+
+  private static String runPrimitive(int[] values) {
+    int n = values.length;
+    long start = System.nanoTime();
+    IntAList list = new IntAList();
+    for (int i = 0; i < n; i++) {
+      list.append(values[i]);
+    }
+    long append = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    long sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += list.get(i);
+    }
+    long get = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    list.addAll(values);
+    long addAll = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    while (list.size() > 0) {
+      sum -= list.pop();
+    }
+    long pop = System.nanoTime() - start;
+    return report(n, append, get, addAll, pop, sum);
+  }
+
+  // per-element times in nanoseconds; check is printed so the JIT cannot
+  // drop the loops (it is minus the sum of values)
+  private static String report(int n, long append, long get, long addAll,
+      long pop, long check) {
+    return String.format("append %.2f  get %.2f  addAll %.2f  pop %.2f "
+        + "ns/element (check %d)", ((double) append) / n, ((double) get) / n,
+        ((double) addAll) / n, ((double) pop) / n, check);
+  }
+}
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+
+/** Compares how the time of a single append changes as an AList and a
+* SegmentedAList grow to n elements. Every append is timed on its own; the
+* median, the 99.99th percentile and the maximum are printed, along with
+* the total time. AList's slowest appends are the ones that copy the whole
+* array, so its maximum grows with n while SegmentedAList's should not.
+* Usage: java AppendLatencyBenchmark [n] */
+public class AppendLatencyBenchmark {
+
+  public static void main(String[] args) {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 25;
+    Integer value = 42; // the same boxed value every time: time lists only
+    long[] times = new long[n];
+    // run each twice and report the second, warmed-up run
+    runAList(value, times);
+    runSegmented(value, times);
+    System.out.println("n = " + n);
+    System.out.println("  AList          " + runAList(value, times));
+    System.out.println("  SegmentedAList " + runSegmented(value, times));
+  }
+
+  private static String runAList(Integer value, long[] times) {
+    AList<Integer> list = new AList<Integer>();
+    long total = System.nanoTime();
+    for (int i = 0; i < times.length; i++) {
+      long start = System.nanoTime();
+      list.append(value);
+      times[i] = System.nanoTime() - start;
+    }
+    total = System.nanoTime() - total;
+    return report(times, total, list.size());
+  }
+
+  private static String runSegmented(Integer value, long[] times) {
+    SegmentedAList<Integer> list = new SegmentedAList<Integer>();
+    long total = System.nanoTime();
+    for (int i = 0; i < times.length; i++) {
+      long start = System.nanoTime();
+      list.append(value);
+      times[i] = System.nanoTime() - start;
+    }
+    total = System.nanoTime() - total;
+    return report(times, total, list.size());
+  }
+
+  private static String report(long[] times, long total, int size) {
+    Arrays.sort(times);
+    return String.format("(%d elements) total %d ms  p50 %d  p99.99 %d  "
+        + "max %d ns", size, total / 1000000, times[times.length / 2],
+        times[(int) (times.length * 0.9999)], times[times.length - 1]);
+  }
+}
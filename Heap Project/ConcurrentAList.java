@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** A thread-safe, append-only AList. Any number of threads may append and
+* read at once without locking.
+*
+* append reserves its index with one fetch-and-add on a shared counter, so
+* appenders never wait for each other, and then stores the value into that
+* slot. Storage is a fixed spine of segments that double in size (segment k
+* holds FIRST << k elements), so there is never a copy: the first appender
+* to need a segment allocates it and publishes it with a compare-and-set,
+* and any appender that loses the race uses the winner's.
+*
+* Slots are filled out of order, since a thread can be delayed between
+* reserving and storing. size() is therefore the published size: the length
+* of the prefix of slots that are all filled. After storing, an appender
+* advances the published size past every filled slot it finds, including
+* those of other threads, so the published size catches up as soon as the
+* slowest pending append completes. get(i) for any i below a size() the
+* caller has seen always returns the appended value.
+* Null values are not allowed, since an empty slot reads as null. */
+public class ConcurrentAList<T> {
+
+  private static final int FIRST_SHIFT = 4;
+  private static final int FIRST = 1 << FIRST_SHIFT; // size of segment 0
+
+  /** The largest number of elements the list can hold */
+  public static final int MAX_SIZE = Integer.MAX_VALUE - FIRST;
+
+  // segment k holds indices FIRST * (2^k - 1) .. FIRST * (2^(k+1) - 1) - 1
+  private final AtomicReferenceArray<AtomicReferenceArray<T>> spine =
+    new AtomicReferenceArray<AtomicReferenceArray<T>>(32 - FIRST_SHIFT);
+  private final AtomicInteger reserved = new AtomicInteger(); // next index
+  private final AtomicInteger published = new AtomicInteger(); // size()
+
+  /** Returns the published size: every index below it holds its value. */
+  public int size() {
+    return published.get();
+  }
+
+  /** Gets element i from the list.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size() does not
+  * hold */
+  public T get(int i) {
+    if (0 > i || i >= published.get()) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    int j = i + FIRST;
+    int high = 31 - Integer.numberOfLeadingZeros(j);
+    return spine.get(high - FIRST_SHIFT).get(j - (1 << high));
+  }
+
+  /** Appends value at the end of the list and returns its index. The value
+  * is visible through get as soon as size() exceeds that index, which is
+  * immediately unless another append is still in progress.
+  * @throws NullPointerException if value is null
+  * @throws IllegalStateException if the list already holds MAX_SIZE
+  * elements */
+  public int append(T value) {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    int i = reserved.getAndIncrement();
+    if (i < 0 || i >= MAX_SIZE) {
+      reserved.set(MAX_SIZE); // undo the overflow for later callers
+      throw new IllegalStateException("ConcurrentAList is full");
+    }
+    int j = i + FIRST;
+    int high = 31 - Integer.numberOfLeadingZeros(j);
+    segment(high - FIRST_SHIFT).set(j - (1 << high), value);
+    publish();
+    return i;
+  }
+
+  /* Return segment k, allocating and publishing it if nobody has yet. */
+  private AtomicReferenceArray<T> segment(int k) {
+    AtomicReferenceArray<T> s = spine.get(k);
+    if (s == null) {
+      s = new AtomicReferenceArray<T>(FIRST << k);
+      if (!spine.compareAndSet(k, null, s)) {
+        s = spine.get(k);
+      }
+    }
+    return s;
+  }
+
+  /* Advance the published size over every filled slot. Each appender calls
+  * this after its own store, so whichever store completes a prefix also
+  * publishes it. */
+  private void publish() {
+    int p = published.get();
+    while (p < reserved.get() && filled(p)) {
+      published.compareAndSet(p, p + 1);
+      p = published.get();
+    }
+  }
+
+  /* Return true if slot i has been stored. */
+  private boolean filled(int i) {
+    int j = i + FIRST;
+    int high = 31 - Integer.numberOfLeadingZeros(j);
+    AtomicReferenceArray<T> s = spine.get(high - FIRST_SHIFT);
+    return s != null && s.get(j - (1 << high)) != null;
+  }
+
+}
@@ -0,0 +1,127 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Stress test and append-scaling benchmark for ConcurrentAList.
+*
+* The stress phase runs writer threads that each append the values
+* (id, 0), (id, 1), ... encoded in a Long, alongside reader threads that
+* keep reading random indices below the current size(). It checks that
+*   - a reader never sees null, or fails, below a size() it has read,
+*   - the final size is the total number of appends,
+*   - every index returned by append holds that append's value, and
+*   - each writer's values appear in the list in the order it appended
+*     them, each exactly once.
+* Any violation is counted and printed; the run ends with PASS or FAIL.
+*
+* The benchmark phase then measures appends per second with 1, 2, 4, ...
+* threads up to the number of cores.
+* Usage: java ConcurrentAListStress [appends per writer] */
+public class ConcurrentAListStress {
+
+  public static void main(String[] args) throws InterruptedException {
+    int perWriter = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+    int cores = Runtime.getRuntime().availableProcessors();
+    boolean ok = stress(Math.max(2, cores / 2), Math.max(2, cores / 2),
+        perWriter);
+    System.out.println(ok ? "PASS" : "FAIL");
+    for (int threads = 1; threads <= cores; threads *= 2) {
+      System.out.println(threads + " appending threads: "
+          + appendThroughput(threads, 1 << 24) / 1000000.0 + " M appends/s");
+    }
+    if (!ok) {
+      System.exit(1);
+    }
+  }
+
+  /* Run the stress phase; return true if no check failed. */
+  private static boolean stress(int writers, int readers, int perWriter)
+      throws InterruptedException {
+    ConcurrentAList<Long> list = new ConcurrentAList<Long>();
+    AtomicLong failures = new AtomicLong();
+    AtomicBoolean done = new AtomicBoolean();
+    int[][] indices = new int[writers][perWriter]; // what append returned
+    Thread[] threads = new Thread[writers + readers];
+
+    for (int w = 0; w < writers; w++) {
+      final int id = w;
+      threads[w] = new Thread(() -> {
+        for (int s = 0; s < perWriter; s++) {
+          indices[id][s] = list.append(((long) id << 32) | s);
+        }
+      });
+    }
+    for (int r = 0; r < readers; r++) {
+      threads[writers + r] = new Thread(() -> {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (!done.get()) {
+          int n = list.size();
+          if (n == 0) {
+            continue;
+          }
+          try {
+            if (list.get(rnd.nextInt(n)) == null
+                || list.get(n - 1) == null) {
+              failures.incrementAndGet();
+            }
+          } catch (RuntimeException e) {
+            failures.incrementAndGet();
+          }
+        }
+      });
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (int w = 0; w < writers; w++) {
+      threads[w].join();
+    }
+    done.set(true);
+    for (int r = 0; r < readers; r++) {
+      threads[writers + r].join();
+    }
+
+    if (list.size() != (long) writers * perWriter) {
+      System.out.println("size " + list.size() + ", expected "
+          + (long) writers * perWriter);
+      failures.incrementAndGet();
+    }
+    for (int w = 0; w < writers; w++) {
+      for (int s = 0; s < perWriter; s++) {
+        int i = indices[w][s];
+        if (list.get(i) != (((long) w << 32) | s)
+            || (s > 0 && i <= indices[w][s - 1])) {
+          failures.incrementAndGet();
+        }
+      }
+    }
+    // two appends given the same index would fail the value check for one
+    // of them, so with the size check every value appears exactly once
+    System.out.println(failures.get() + " failures");
+    return failures.get() == 0;
+  }
+
+  /* Return appends per second with the given number of threads sharing
+  * n appends. */
+  private static double appendThroughput(int threads, int n)
+      throws InterruptedException {
+    ConcurrentAList<Long> list = new ConcurrentAList<Long>();
+    Long value = 42L;
+    Thread[] ts = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      ts[t] = new Thread(() -> {
+        for (int i = 0; i < n / threads; i++) {
+          list.append(value);
+        }
+      });
+    }
+    long start = System.nanoTime();
+    for (Thread t : ts) {
+      t.start();
+    }
+    for (Thread t : ts) {
+      t.join();
+    }
+    return list.size() / ((System.nanoTime() - start) / 1e9);
+  }
+}
@@ -0,0 +1,236 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** A thread-safe hash table with the get/put/remove/containsKey/getSize
+ * contract of HashTable. Keys are compared with equals.
+ *
+ * The table is split into stripes, each an independent chained table with
+ * its own lock; a key's stripe is chosen by the high bits of its hash and
+ * its bucket by the low bits. put and remove lock only the key's stripe, so
+ * writers to different stripes never wait on each other.
+ *
+ * get and containsKey take no locks at all. Bucket heads are read through
+ * an AtomicReferenceArray (volatile reads) and a node's key, hash and next
+ * pointer never change after it is published, so a reader always sees a
+ * complete chain: remove builds a new copy of the part of the chain before
+ * the removed node instead of unlinking it in place, and growing a stripe
+ * builds a whole new bucket array which is published with one volatile
+ * write. A reader still walking the old array sees the stripe as it was
+ * just before the change.
+ *
+ * Each stripe grows on its own when its load factor exceeds 0.8, by the
+ * writer that pushes it over, so resize work is spread across stripes and
+ * threads rather than stopping the whole table. */
+public class ConcurrentHashTable<K,V> {
+
+    /** A chain node. Only value may change once the node is published. */
+    private static final class Node<K,V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        final Node<K,V> next;
+
+        Node(int hash, K key, V value, Node<K,V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** One independently locked and resized part of the table. */
+    private static final class Stripe<K,V> {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile AtomicReferenceArray<Node<K,V>> buckets;
+        volatile int count; // written only while holding the lock
+
+        Stripe(int capacity) {
+            buckets = new AtomicReferenceArray<Node<K,V>>(capacity);
+        }
+    }
+
+    private final Stripe<K,V>[] stripes;
+    private final int stripeShift; // hash >>> stripeShift picks the stripe
+
+    /** constructor: 16 stripes with a total initial capacity of 256 */
+    public ConcurrentHashTable() {
+        this(16, 256);
+    }
+
+    /** constructor: the given number of stripes (rounded up to a power of
+     * two) sharing at least the given total initial capacity */
+    @SuppressWarnings("unchecked")
+    public ConcurrentHashTable(int stripeCount, int capacity) {
+        int n = powerOfTwo(Math.max(stripeCount, 1));
+        int perStripe = powerOfTwo(Math.max(capacity / n, 2));
+        stripes = (Stripe<K,V>[]) new Stripe<?,?>[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe<K,V>(perStripe);
+        }
+        stripeShift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /** Return the number of key-value mappings in the table. Under
+     * concurrent updates this is only a snapshot. */
+    public int getSize() {
+        int size = 0;
+        for (Stripe<K,V> s : stripes) {
+            size += s.count;
+        }
+        return size;
+    }
+
+    /** Return the total number of buckets across all stripes */
+    public int getCapacity() {
+        int capacity = 0;
+        for (Stripe<K,V> s : stripes) {
+            capacity += s.buckets.length();
+        }
+        return capacity;
+    }
+
+    /** Return the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key. Never blocks.
+     * Runtime: average case O(1) */
+    public V get(K key) {
+        Node<K,V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     * Never blocks.
+     * Runtime: average case O(1) */
+    public boolean containsKey(K key) {
+        return find(key) != null;
+    }
+
+    /** Associate the specified value with the specified key in this map,
+     * returning the previous value or null if there was none. Locks the
+     * key's stripe.
+     * Precondition: val is not null.
+     * Runtime: average case O(1) */
+    public V put(K key, V val) {
+        int h = hash(key);
+        Stripe<K,V> s = stripeFor(h);
+        s.lock.lock();
+        try {
+            AtomicReferenceArray<Node<K,V>> tab = s.buckets;
+            int i = h & (tab.length() - 1);
+            Node<K,V> head = tab.get(i);
+            for (Node<K,V> n = head; n != null; n = n.next) {
+                if (n.hash == h && key.equals(n.key)) {
+                    V old = n.value;
+                    n.value = val;
+                    return old;
+                }
+            }
+            tab.set(i, new Node<K,V>(h, key, val, head));
+            s.count = s.count + 1;
+            if (s.count > 0.8 * tab.length()) {
+                grow(s);
+            }
+            return null;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /** Remove the mapping for the specified key from this map if present,
+     * returning its value or null if there was none. Locks the key's stripe.
+     * Runtime: average case O(1) */
+    public V remove(K key) {
+        int h = hash(key);
+        Stripe<K,V> s = stripeFor(h);
+        s.lock.lock();
+        try {
+            AtomicReferenceArray<Node<K,V>> tab = s.buckets;
+            int i = h & (tab.length() - 1);
+            Node<K,V> head = tab.get(i);
+            Node<K,V> target = head;
+            while (target != null && !(target.hash == h
+                        && key.equals(target.key))) {
+                target = target.next;
+            }
+            if (target == null) {
+                return null;
+            }
+            // copy the nodes ahead of target onto the rest of the chain
+            Node<K,V> chain = target.next;
+            for (Node<K,V> n = head; n != target; n = n.next) {
+                chain = new Node<K,V>(n.hash, n.key, n.value, chain);
+            }
+            tab.set(i, chain);
+            s.count = s.count - 1;
+            return target.value;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /* Lock-free lookup of key's node. */
+    private Node<K,V> find(K key) {
+        int h = hash(key);
+        AtomicReferenceArray<Node<K,V>> tab = stripeFor(h).buckets;
+        Node<K,V> n = tab.get(h & (tab.length() - 1));
+        while (n != null) {
+            if (n.hash == h && key.equals(n.key)) {
+                return n;
+            }
+            n = n.next;
+        }
+        return null;
+    }
+
+    /* Double s's bucket array, copying its chains into a new array that is
+     * then published in one volatile write. Nodes at the tail of a chain
+     * that all land in the same new bucket are reused as they are.
+     * Precondition: s is locked by this thread. */
+    private void grow(Stripe<K,V> s) {
+        AtomicReferenceArray<Node<K,V>> old = s.buckets;
+        int capacity = old.length() * 2;
+        AtomicReferenceArray<Node<K,V>> tab =
+            new AtomicReferenceArray<Node<K,V>>(capacity);
+        for (int i = 0; i < old.length(); i++) {
+            Node<K,V> head = old.get(i);
+            if (head == null) {
+                continue;
+            }
+            // find the last run of nodes going to the same bucket
+            Node<K,V> run = head;
+            int runIndex = head.hash & (capacity - 1);
+            for (Node<K,V> n = head.next; n != null; n = n.next) {
+                int k = n.hash & (capacity - 1);
+                if (k != runIndex) {
+                    run = n;
+                    runIndex = k;
+                }
+            }
+            tab.set(runIndex, run);
+            for (Node<K,V> n = head; n != run; n = n.next) {
+                int k = n.hash & (capacity - 1);
+                tab.set(k, new Node<K,V>(n.hash, n.key, n.value, tab.get(k)));
+            }
+        }
+        s.buckets = tab;
+    }
+
+    private Stripe<K,V> stripeFor(int h) {
+        // with one stripe the shift is 32, which Java treats as 0; mask it
+        return stripes[(h >>> stripeShift) & (stripes.length - 1)];
+    }
+
+    /* Spread the key's hashCode so the stripe and bucket bits both depend
+     * on all of its bits. */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int powerOfTwo(int n) {
+        int p = 1;
+        while (p < n) {
+            p *= 2;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Stress test and read-scaling benchmark for ConcurrentHashTable.
+ *
+ * The stress phase runs writer threads, each owning a disjoint range of
+ * keys and mapping key k only ever to k * 2, alongside reader threads that
+ * look up random keys from all ranges while stripes grow and chains are
+ * rewritten underneath them. It checks that
+ *   - a reader only ever sees null or k * 2 for key k (no torn or foreign
+ *     values, no exceptions from half-built chains),
+ *   - each writer sees its own puts and removes immediately, and
+ *   - the final size equals the sum of what the writers left behind.
+ * Any violation is counted and printed; the run ends with PASS or FAIL.
+ *
+ * The benchmark phase then fills a table and measures lookups per second
+ * with 1, 2, 4, ... threads up to the number of cores.
+ * Usage: java ConcurrentHashTableStress [seconds] */
+public class ConcurrentHashTableStress {
+
+    private static final int KEYS_PER_WRITER = 1 << 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean ok = stress(Math.max(2, cores / 2), Math.max(2, cores / 2),
+                seconds * 1000L);
+        System.out.println(ok ? "PASS" : "FAIL");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            System.out.println(threads + " reader threads: "
+                    + readThroughput(threads, 1000) / 1000000.0
+                    + " M lookups/s");
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /* Run the stress phase for millis; return true if no check failed. */
+    private static boolean stress(int writers, int readers, long millis)
+        throws InterruptedException {
+        ConcurrentHashTable<Integer, Integer> t =
+            new ConcurrentHashTable<Integer, Integer>(4, 8);
+        AtomicLong failures = new AtomicLong();
+        long[] left = new long[writers]; // mappings each writer left behind
+        long deadline = System.currentTimeMillis() + millis;
+        Thread[] threads = new Thread[writers + readers];
+
+        for (int w = 0; w < writers; w++) {
+            final int id = w;
+            threads[w] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                boolean[] present = new boolean[KEYS_PER_WRITER];
+                long count = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    int j = rnd.nextInt(KEYS_PER_WRITER);
+                    int k = id * KEYS_PER_WRITER + j;
+                    if (rnd.nextInt(3) != 0) {
+                        Integer old = t.put(k, k * 2);
+                        if ((old != null) != present[j]) {
+                            failures.incrementAndGet();
+                        }
+                        if (!present[j]) {
+                            present[j] = true;
+                            count++;
+                        }
+                    } else {
+                        Integer old = t.remove(k);
+                        if ((old != null) != present[j]) {
+                            failures.incrementAndGet();
+                        }
+                        if (present[j]) {
+                            present[j] = false;
+                            count--;
+                        }
+                    }
+                    if (t.containsKey(k) != present[j]) {
+                        failures.incrementAndGet();
+                    }
+                }
+                left[id] = count;
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            threads[writers + r] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.currentTimeMillis() < deadline) {
+                    int k = rnd.nextInt(writers * KEYS_PER_WRITER);
+                    Integer v = t.get(k);
+                    if (v != null && v != k * 2) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread th : threads) {
+            th.start();
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+
+        long expected = 0;
+        for (long c : left) {
+            expected += c;
+        }
+        if (t.getSize() != expected) {
+            System.out.println("size " + t.getSize() + ", expected "
+                    + expected);
+            failures.incrementAndGet();
+        }
+        System.out.println("stress: " + writers + " writers, " + readers
+                + " readers, " + failures.get() + " failures, final size "
+                + t.getSize() + ", capacity " + t.getCapacity());
+        return failures.get() == 0;
+    }
+
+    /* Return lookups per second over a filled table with the given number
+     * of reader threads. */
+    private static double readThroughput(int threads, long millis)
+        throws InterruptedException {
+        int n = 1 << 20;
+        ConcurrentHashTable<Integer, Integer> t =
+            new ConcurrentHashTable<Integer, Integer>(64, n);
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+            t.put(keys[i], i);
+        }
+        AtomicLong lookups = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] readers = new Thread[threads];
+        for (int r = 0; r < threads; r++) {
+            readers[r] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long deadline = System.currentTimeMillis() + millis;
+                while (System.currentTimeMillis() < deadline) {
+                    for (int i = 0; i < 1024; i++) {
+                        if (t.get(keys[rnd.nextInt(n)]) != null) {
+                            count++;
+                        }
+                    }
+                }
+                lookups.addAndGet(count);
+            });
+            readers[r].start();
+        }
+        start.countDown();
+        for (Thread th : readers) {
+            th.join();
+        }
+        return lookups.get() * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,324 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** A hash table with the get/put/remove/containsKey/getSize contract of
+ * HashTable whose lookups inspect a bounded number of slots no matter how
+ * keys collide: a key can only ever be in one of two 4-slot buckets, chosen
+ * by two independent hash functions, or in a small stash. A lookup reads
+ * those 8 slots (each bucket's slots are adjacent in memory) and the stash,
+ * so its worst case is the same as its average case.
+ *
+ * An insertion whose two buckets are full evicts a random resident of one
+ * of them, which moves to its own other bucket, possibly evicting another,
+ * for at most MAX_KICKS moves. An entry still homeless after that goes to
+ * the stash; if the stash is full too, the table doubles and rehashes.
+ * With 4-slot buckets this lets the table run at load factors around 0.9
+ * before it needs to grow. remove moves a stashed entry into the freed
+ * slot when it belongs there, so deletions empty the stash again.
+ *
+ * Keys with equal hash codes share both buckets at every table size, so
+ * more than 2 * SLOTS + STASH_SIZE of them can never be placed. Growing is
+ * therefore given up after MAX_FAILED_GROWTHS doublings in a row that were
+ * caused by failed placements rather than by load, and the stash grows
+ * past STASH_SIZE instead. Only such keys make lookups slower than O(1).
+ * Keys are compared with equals. */
+public class CuckooHashTable<K,V> {
+
+    protected static final int SLOTS = 4; // slots per bucket
+    protected static final int MAX_KICKS = 256; // evictions per insertion
+    protected static final int STASH_SIZE = 4;
+    protected static final int MAX_FAILED_GROWTHS = 2;
+
+    /**
+     * Slot s of bucket b is index b * SLOTS + s of keys, values and hashes.
+     *
+     * Class Invariants:
+     *   1. The number of buckets is a power of two and mask = buckets - 1.
+     *   2. keys[i] == null iff slot i is unused.
+     *   3. A key k in a slot lies in bucket bucket1(h) or bucket2(h), where
+     *      h == k.hashCode() == hashes[i].
+     *   4. Stashed mappings are in stashKeys/stashValues[0..stashed-1], and
+     *      stashed > STASH_SIZE only if failedGrowths == MAX_FAILED_GROWTHS
+     *      at some insertion since the table last grew for load.
+     *   5. size counts the mappings in slots and in the stash, and
+     *      size <= maxLoad * keys.length.
+     */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes; // cached hashCode of keys[i]
+    private int mask;
+    private Object[] stashKeys = new Object[STASH_SIZE];
+    private Object[] stashValues = new Object[STASH_SIZE];
+    private int stashed;
+    private int failedGrowths; // growths for failed placements in a row
+    private int size;
+    private final double maxLoad;
+
+    /** constructor: initialize with 16 slots and maximum load factor 0.9 */
+    public CuckooHashTable() {
+        this(16, 0.9);
+    }
+
+    /** constructor: initialize with at least the given number of slots,
+     * growing when an insertion would push the load factor over maxLoad or
+     * cannot find a place.
+     * @throws IllegalArgumentException unless 0 < maxLoad <= 0.98 */
+    public CuckooHashTable(int capacity, double maxLoad) {
+        if (!(maxLoad > 0 && maxLoad <= 0.98)) {
+            throw new IllegalArgumentException("bad load factor " + maxLoad);
+        }
+        this.maxLoad = maxLoad;
+        int buckets = 2;
+        while (buckets * SLOTS < capacity) {
+            buckets *= 2;
+        }
+        allocate(buckets);
+    }
+
+    /** Return the size of the map (the number of key-value mappings in the
+     * table) */
+    public int getSize() {
+        return size;
+    }
+
+    /** Return the current capacity of the table (the number of slots, not
+     * counting the stash) */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /** Return the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * Runtime: O(1) worst case */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = find(key, key.hashCode());
+        if (i >= 0) {
+            return (V) values[i];
+        }
+        int s = findStashed(key);
+        return s < 0 ? null : (V) stashValues[s];
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     *  Runtime: O(1) worst case */
+    public boolean containsKey(K key) {
+        return find(key, key.hashCode()) >= 0 || findStashed(key) >= 0;
+    }
+
+    /** Associate the specified value with the specified key in this map,
+     * returning the previous value or null if there was none.
+     * Precondition: val is not null.
+     * Runtime: O(1) expected; O(size) when the table grows */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V val) {
+        int h = key.hashCode();
+        int i = find(key, h);
+        if (i >= 0) {
+            V old = (V) values[i];
+            values[i] = val;
+            return old;
+        }
+        int s = findStashed(key);
+        if (s >= 0) {
+            V old = (V) stashValues[s];
+            stashValues[s] = val;
+            return old;
+        }
+        if (size + 1 > maxLoad * keys.length) {
+            failedGrowths = 0;
+            rehash(2 * (mask + 1));
+        }
+        insert(key, val, h);
+        size++;
+        return null;
+    }
+
+    /** Remove the mapping for the specified key from this map if present,
+     * returning its value or null if there was none.
+     * Runtime: O(1) worst case */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = find(key, key.hashCode());
+        if (i >= 0) {
+            V old = (V) values[i];
+            keys[i] = null;
+            values[i] = null;
+            size--;
+            unstash(i / SLOTS);
+            return old;
+        }
+        int s = findStashed(key);
+        if (s < 0) {
+            return null;
+        }
+        V old = (V) stashValues[s];
+        removeStashed(s);
+        size--;
+        return old;
+    }
+
+    /** Return the number of mappings currently in the stash */
+    public int getStashed() {
+        return stashed;
+    }
+
+    /* Return the slot of key (whose hashCode is h) in its two buckets, or
+     * -1 if it is not in either. */
+    private int find(Object key, int h) {
+        int b = bucket1(h) * SLOTS;
+        for (int i = b; i < b + SLOTS; i++) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                return i;
+            }
+        }
+        b = bucket2(h) * SLOTS;
+        for (int i = b; i < b + SLOTS; i++) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* Return the stash index of key, or -1. */
+    private int findStashed(Object key) {
+        for (int s = 0; s < stashed; s++) {
+            if (key.equals(stashKeys[s])) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /* Place a mapping known not to be present, evicting residents as needed
+     * and falling back to the stash, then to growing. */
+    private void insert(Object key, Object val, int h) {
+        while (true) {
+            int b = bucket1(h);
+            if (placeInBucket(b, key, val, h)
+                    || placeInBucket(bucket2(h), key, val, h)) {
+                return;
+            }
+            for (int kick = 0; kick < MAX_KICKS; kick++) {
+                // b is full: swap with a random resident, which then looks
+                // for room in its other bucket
+                int i = b * SLOTS
+                    + ThreadLocalRandom.current().nextInt(SLOTS);
+                Object k = keys[i];
+                Object v = values[i];
+                int kh = hashes[i];
+                keys[i] = key;
+                values[i] = val;
+                hashes[i] = h;
+                key = k;
+                val = v;
+                h = kh;
+                b = otherBucket(b, h);
+                if (placeInBucket(b, key, val, h)) {
+                    return;
+                }
+            }
+            if (stashed < STASH_SIZE || failedGrowths == MAX_FAILED_GROWTHS) {
+                stash(key, val);
+                return;
+            }
+            failedGrowths++;
+            rehash(2 * (mask + 1));
+        }
+    }
+
+    private void stash(Object key, Object val) {
+        if (stashed == stashKeys.length) {
+            stashKeys = Arrays.copyOf(stashKeys, 2 * stashed);
+            stashValues = Arrays.copyOf(stashValues, 2 * stashed);
+        }
+        stashKeys[stashed] = key;
+        stashValues[stashed] = val;
+        stashed++;
+    }
+
+    private void removeStashed(int s) {
+        stashed--;
+        stashKeys[s] = stashKeys[stashed];
+        stashValues[s] = stashValues[stashed];
+        stashKeys[stashed] = null;
+        stashValues[stashed] = null;
+    }
+
+    /* A slot of bucket b has been freed: move a stashed mapping that
+     * belongs in b into it, if there is one. */
+    private void unstash(int b) {
+        for (int s = 0; s < stashed; s++) {
+            int h = stashKeys[s].hashCode();
+            if ((bucket1(h) == b || bucket2(h) == b)
+                    && placeInBucket(b, stashKeys[s], stashValues[s], h)) {
+                removeStashed(s);
+                return;
+            }
+        }
+    }
+
+    /* Put the mapping in a free slot of bucket b if there is one. */
+    private boolean placeInBucket(int b, Object key, Object val, int h) {
+        for (int i = b * SLOTS; i < b * SLOTS + SLOTS; i++) {
+            if (keys[i] == null) {
+                keys[i] = key;
+                values[i] = val;
+                hashes[i] = h;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Rebuild the table with the given number of buckets, also emptying the
+     * stash back into it where possible. */
+    private void rehash(int buckets) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] oldStashKeys = stashKeys;
+        Object[] oldStashValues = stashValues;
+        int oldStashed = stashed;
+        allocate(buckets);
+        stashKeys = new Object[STASH_SIZE];
+        stashValues = new Object[STASH_SIZE];
+        stashed = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+        for (int s = 0; s < oldStashed; s++) {
+            insert(oldStashKeys[s], oldStashValues[s],
+                    oldStashKeys[s].hashCode());
+        }
+    }
+
+    private void allocate(int buckets) {
+        keys = new Object[buckets * SLOTS];
+        values = new Object[buckets * SLOTS];
+        hashes = new int[buckets * SLOTS];
+        mask = buckets - 1;
+    }
+
+    /* The two hash functions: independent multiplicative mixes of h. */
+    private int bucket1(int h) {
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int bucket2(int h) {
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /* Return the bucket of hash h that is not b (b itself if both agree). */
+    private int otherBucket(int b, int h) {
+        int b1 = bucket1(h);
+        return b == b1 ? bucket2(h) : b1;
+    }
+}
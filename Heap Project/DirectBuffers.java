@@ -0,0 +1,47 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/** Helper for releasing direct and memory-mapped ByteBuffers. Java frees
+ *  their memory (or unmaps their file) only when the garbage collector
+ *  finds the buffer unreachable, which for a large buffer may be much
+ *  later than the program is done with it. */
+public final class DirectBuffers {
+
+    // sun.misc.Unsafe.invokeCleaner, if this JVM lets us reach it
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method cleaner = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            Field f = c.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            cleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            cleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = cleaner;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /** Free a direct or mapped buffer immediately if possible; otherwise it
+     *  is freed whenever the garbage collector finds it unreachable. b must
+     *  not be used afterwards. */
+    public static void free(ByteBuffer b) {
+        if (INVOKE_CLEANER != null && b.isDirect()) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, b);
+            } catch (ReflectiveOperationException e) {
+                // leave it to the garbage collector
+            }
+        }
+    }
+}
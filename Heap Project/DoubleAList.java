@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A dynamic array of doubles: AList specialized to a double[], so elements are
+* stored unboxed and get needs no cast. Growth copies with
+* System.arraycopy. */
+public class DoubleAList {
+
+  protected int size; // number of elements in the DoubleAList
+  protected double[] a; // the backing array storage
+
+  public int size() {
+    return size;
+  }
+
+  protected int getCap() {
+    return a.length;
+  }
+
+  /** Creates a DoubleAList with a default capacity of 8 */
+  public DoubleAList() {
+    this(8);
+  }
+
+  /** Creates a DoubleAList with the given capacity */
+  public DoubleAList(int capacity) {
+    a = new double[capacity];
+    size = 0;
+  }
+
+  /** Grows a to double its current size, or to newSize if that is larger,
+  * if newSize exceeds a's capacity. This does *not* change the size. */
+  protected void growIfNeeded(int newSize) {
+    if (newSize > a.length) {
+      double[] temp = new double[Math.max(2 * a.length, newSize)];
+      System.arraycopy(a, 0, temp, 0, a.length);
+      a = temp;
+    }
+  }
+
+  /** Resizes the DoubleAList.
+  *  this *does* modify the size, and may modify the capacity if newsize
+  *  exceeds capacity. New elements are 0 unless they were in use before. */
+  public void resize(int newSize) {
+    growIfNeeded(newSize);
+    size = newSize;
+  }
+
+  /** Gets element i from DoubleAList.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public double get(int i) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    return a[i];
+  }
+
+  /** Sets the ith element of the list to value.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public void put(int i, double value) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    a[i] = value;
+  }
+
+  /** Appends value at the end of the DoubleAList, increasing size by 1.
+  * Grows the array if needed to fit the appended value */
+  public void append(double value) {
+    if (size == a.length) {
+      growIfNeeded(size + 1);
+    }
+    a[size++] = value;
+  }
+
+  /** Appends all of values at the end of the DoubleAList, growing at most
+  * once. */
+  public void addAll(double[] values) {
+    growIfNeeded(size + values.length);
+    System.arraycopy(values, 0, a, size, values.length);
+    size += values.length;
+  }
+
+  /** Removes and returns the value at the end of the DoubleAList.
+  *  this *does* modify size and cannot modify capacity.
+  *  @throws NoSuchElementException if size == 0*/
+  public double pop() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    size--;
+    return a[size];
+  }
+
+  /** Returns a new array holding elements 0..size-1. */
+  public double[] toArray() {
+    return Arrays.copyOf(a, size);
+  }
+
+}
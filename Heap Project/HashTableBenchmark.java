@@ -0,0 +1,123 @@
+import java.util.Random;
+
+/** Compares RobinHoodHashTable against the chained HashTable. For each
+ * target load factor, both tables start with the same capacity and are
+ * filled to that load, then timed on hits, misses and remove/re-put.
+ * The chained table grows past a load factor of 0.8, so its achieved load
+ * is printed alongside.
+ * Usage: java HashTableBenchmark [log2 capacity] */
+public class HashTableBenchmark {
+
+    public static void main(String[] args) {
+        int logCap = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int capacity = 1 << logCap;
+        double[] loads = {0.5, 0.6, 0.7, 0.8, 0.9};
+
+        // random keys (evens) and misses (odds), boxed once up front since
+        // HashTable compares keys with ==
+        Random rnd = new Random(42);
+        Integer[] keys = new Integer[capacity];
+        Integer[] misses = new Integer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = rnd.nextInt() & ~1;
+            misses[i] = rnd.nextInt() | 1;
+        }
+
+        for (double load : loads) {
+            int n = (int) (load * capacity);
+            // run each twice and report the second, warmed-up run
+            runChained(keys, misses, n, capacity);
+            runRobinHood(keys, misses, n, capacity, load);
+            String chained = runChained(keys, misses, n, capacity);
+            String robin = runRobinHood(keys, misses, n, capacity, load);
+            System.out.println("load " + load + ":");
+            System.out.println("  chained    " + chained);
+            System.out.println("  robin hood " + robin);
+        }
+    }
+
+    private static String runChained(Integer[] keys, Integer[] misses, int n,
+            int capacity) {
+        HashTable<Integer, Integer> t = new HashTable<Integer, Integer>(capacity);
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long put = System.nanoTime() - start;
+        double load = ((double) t.getSize()) / t.getCapacity();
+
+        start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+            if (t.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        long hit = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (t.containsKey(misses[i])) {
+                found++;
+            }
+        }
+        long miss = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.remove(keys[i]);
+            t.put(keys[i], i);
+        }
+        long churn = System.nanoTime() - start;
+        return report(load, n, put, hit, miss, churn, found);
+    }
+
+    private static String runRobinHood(Integer[] keys, Integer[] misses, int n,
+            int capacity, double maxLoad) {
+        // a little headroom so that exactly n keys fit without growing
+        RobinHoodHashTable<Integer, Integer> t =
+            new RobinHoodHashTable<Integer, Integer>(capacity,
+                    Math.min(maxLoad + 0.01, 0.99));
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long put = System.nanoTime() - start;
+        double load = ((double) t.getSize()) / t.getCapacity();
+
+        start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+            if (t.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        long hit = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (t.containsKey(misses[i])) {
+                found++;
+            }
+        }
+        long miss = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.remove(keys[i]);
+            t.put(keys[i], i);
+        }
+        long churn = System.nanoTime() - start;
+        return report(load, n, put, hit, miss, churn, found)
+            + " max probe " + t.maxProbeLength();
+    }
+
+    // per-operation times in nanoseconds
+    private static String report(double load, int n, long put, long hit,
+            long miss, long churn, long found) {
+        return String.format("(load %.2f, %d found) put %.1f  hit %.1f  "
+                + "miss %.1f  remove+put %.1f ns/op", load, found,
+                ((double) put) / n, ((double) hit) / n, ((double) miss) / n,
+                ((double) churn) / n);
+    }
+}
@@ -0,0 +1,168 @@
+/** Operation counters for a Heap, for tuning queues. A Heap only keeps
+ *  these while metrics are enabled (Heap.enableMetrics); otherwise its
+ *  metrics field is null and each instrumentation point costs a single
+ *  null check. The counters are plain longs, so like Heap itself they are
+ *  not thread-safe.
+ *  Sample usage:
+ *    heap.enableMetrics(1024);
+ *    ... use the heap ...
+ *    System.out.println(heap.getMetrics()); */
+public class HeapMetrics {
+
+    // sift counts: operations that sifted, levels moved, most in one op
+    long siftUps;
+    long siftUpLevels;
+    long maxSiftUpLevels;
+    long siftDowns;
+    long siftDownLevels;
+    long maxSiftDownLevels;
+    private long currentLevels; // levels moved by the sift in progress
+
+    long swaps;
+    long mapPuts;
+    long mapRemoves;
+    long changePriorityUps; // changePriority calls that sifted toward root
+    long changePriorityDowns; // changePriority calls that sifted away from it
+
+    // size/depth gauge, sampled every sampleInterval operations
+    private final int sampleInterval;
+    private long operations;
+    private long samples;
+    private int lastSize;
+    private int maxSize;
+    private long sizeTotal;
+
+    /** Constructor: sample the size gauge every sampleInterval
+     *  add/poll/changePriority operations.
+     *  @throws IllegalArgumentException if sampleInterval < 1. */
+    public HeapMetrics(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /** Called at the start of a sift (up or down). */
+    void beginSift() {
+        currentLevels = 0;
+    }
+
+    /** Called once per level a sift moves an entry. */
+    void siftLevel() {
+        currentLevels++;
+    }
+
+    /** Called when a sift up finishes. */
+    void endSiftUp() {
+        siftUps++;
+        siftUpLevels += currentLevels;
+        maxSiftUpLevels = Math.max(maxSiftUpLevels, currentLevels);
+    }
+
+    /** Called when a sift down finishes. */
+    void endSiftDown() {
+        siftDowns++;
+        siftDownLevels += currentLevels;
+        maxSiftDownLevels = Math.max(maxSiftDownLevels, currentLevels);
+    }
+
+    /** Called after each public operation with the heap's new size. */
+    void operation(int size) {
+        operations++;
+        if (operations % sampleInterval == 0) {
+            samples++;
+            lastSize = size;
+            maxSize = Math.max(maxSize, size);
+            sizeTotal += size;
+        }
+    }
+
+    /** Return an immutable copy of the current counters. */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Return the depth of a complete binary tree with n nodes. */
+    static int depth(int n) {
+        return 32 - Integer.numberOfLeadingZeros(n);
+    }
+
+    /** A point-in-time copy of a HeapMetrics. */
+    public static final class Snapshot {
+        public final long operations;
+        public final long siftUps;
+        public final long siftUpLevels;
+        public final long maxSiftUpLevels;
+        public final long siftDowns;
+        public final long siftDownLevels;
+        public final long maxSiftDownLevels;
+        public final long swaps;
+        public final long mapPuts;
+        public final long mapRemoves;
+        public final long changePriorityUps;
+        public final long changePriorityDowns;
+        public final long samples;
+        public final int lastSampledSize;
+        public final int maxSampledSize;
+        public final double meanSampledSize;
+
+        private Snapshot(HeapMetrics m) {
+            operations = m.operations;
+            siftUps = m.siftUps;
+            siftUpLevels = m.siftUpLevels;
+            maxSiftUpLevels = m.maxSiftUpLevels;
+            siftDowns = m.siftDowns;
+            siftDownLevels = m.siftDownLevels;
+            maxSiftDownLevels = m.maxSiftDownLevels;
+            swaps = m.swaps;
+            mapPuts = m.mapPuts;
+            mapRemoves = m.mapRemoves;
+            changePriorityUps = m.changePriorityUps;
+            changePriorityDowns = m.changePriorityDowns;
+            samples = m.samples;
+            lastSampledSize = m.lastSize;
+            maxSampledSize = m.maxSize;
+            meanSampledSize = m.samples == 0 ? 0
+                    : ((double) m.sizeTotal) / m.samples;
+        }
+
+        /** Return the depth of the tree at the last size sample. */
+        public int lastSampledDepth() {
+            return depth(lastSampledSize);
+        }
+
+        /** Return the depth of the tree at its largest sampled size. */
+        public int maxSampledDepth() {
+            return depth(maxSampledSize);
+        }
+
+        /** Return the mean number of levels per sift up. */
+        public double meanSiftUpLevels() {
+            return siftUps == 0 ? 0 : ((double) siftUpLevels) / siftUps;
+        }
+
+        /** Return the mean number of levels per sift down. */
+        public double meanSiftDownLevels() {
+            return siftDowns == 0 ? 0 : ((double) siftDownLevels) / siftDowns;
+        }
+
+        /** Return a multi-line report of every counter. */
+        public String toString() {
+            return "operations: " + operations
+                + "\nsift up: " + siftUps + " ops, " + siftUpLevels
+                + " levels (mean " + meanSiftUpLevels() + ", max "
+                + maxSiftUpLevels + ")"
+                + "\nsift down: " + siftDowns + " ops, " + siftDownLevels
+                + " levels (mean " + meanSiftDownLevels() + ", max "
+                + maxSiftDownLevels + ")"
+                + "\nswaps: " + swaps
+                + "\nmap puts: " + mapPuts + " removes: " + mapRemoves
+                + "\nchangePriority up: " + changePriorityUps
+                + " down: " + changePriorityDowns
+                + "\nsize samples: " + samples + " (last " + lastSampledSize
+                + ", max " + maxSampledSize + ", mean " + meanSampledSize
+                + "; depth last " + lastSampledDepth() + ", max "
+                + maxSampledDepth() + ")";
+        }
+    }
+}
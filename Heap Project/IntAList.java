@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A dynamic array of ints: AList specialized to an int[], so elements are
+* stored unboxed and get needs no cast. Growth copies with
+* System.arraycopy. */
+public class IntAList {
+
+  protected int size; // number of elements in the IntAList
+  protected int[] a; // the backing array storage
+
+  public int size() {
+    return size;
+  }
+
+  protected int getCap() {
+    return a.length;
+  }
+
+  /** Creates an IntAList with a default capacity of 8 */
+  public IntAList() {
+    this(8);
+  }
+
+  /** Creates an IntAList with the given capacity */
+  public IntAList(int capacity) {
+    a = new int[capacity];
+    size = 0;
+  }
+
+  /** Grows a to double its current size, or to newSize if that is larger,
+  * if newSize exceeds a's capacity. This does *not* change the size. */
+  protected void growIfNeeded(int newSize) {
+    if (newSize > a.length) {
+      int[] temp = new int[Math.max(2 * a.length, newSize)];
+      System.arraycopy(a, 0, temp, 0, a.length);
+      a = temp;
+    }
+  }
+
+  /** Resizes the IntAList.
+  *  this *does* modify the size, and may modify the capacity if newsize
+  *  exceeds capacity. New elements are 0 unless they were in use before. */
+  public void resize(int newSize) {
+    growIfNeeded(newSize);
+    size = newSize;
+  }
+
+  /** Gets element i from IntAList.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public int get(int i) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    return a[i];
+  }
+
+  /** Sets the ith element of the list to value.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public void put(int i, int value) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    a[i] = value;
+  }
+
+  /** Appends value at the end of the IntAList, increasing size by 1.
+  * Grows the array if needed to fit the appended value */
+  public void append(int value) {
+    if (size == a.length) {
+      growIfNeeded(size + 1);
+    }
+    a[size++] = value;
+  }
+
+  /** Appends all of values at the end of the IntAList, growing at most
+  * once. */
+  public void addAll(int[] values) {
+    growIfNeeded(size + values.length);
+    System.arraycopy(values, 0, a, size, values.length);
+    size += values.length;
+  }
+
+  /** Removes and returns the value at the end of the IntAList.
+  *  this *does* modify size and cannot modify capacity.
+  *  @throws NoSuchElementException if size == 0*/
+  public int pop() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    size--;
+    return a[size];
+  }
+
+  /** Returns a new array holding elements 0..size-1. */
+  public int[] toArray() {
+    return Arrays.copyOf(a, size);
+  }
+
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/** A hash table from primitive ints to primitive ints, for maps keyed by
+ * dense ids. Keys and values are stored in two flat int arrays, so no
+ * operation boxes or allocates once the table has grown to its working
+ * size.
+ *
+ * As in ObjectIntHashTable, a missing mapping is reported with the
+ * "absent" value (by default -1), which cannot itself be stored. Any int
+ * can be a key: Integer.MIN_VALUE marks unused slots, so a mapping for that
+ * key is kept in a field of its own.
+ *
+ * Collisions are resolved by linear probing in a power-of-two table that
+ * doubles when the load factor would exceed 0.75; removal shifts later
+ * entries of the probe run back instead of leaving tombstones. */
+public class IntIntHashTable {
+
+    /** the absent value used by the default constructors */
+    public static final int DEFAULT_ABSENT = -1;
+
+    private static final int FREE = Integer.MIN_VALUE; // key of unused slot
+
+    private int[] keys;
+    private int[] values;
+    private int mask; // capacity - 1
+    private int size; // includes the FREE key's mapping, if any
+    private final int absent;
+    private boolean hasFreeKey; // whether FREE itself is mapped
+    private int freeKeyValue;
+
+    /** constructor: initialize with default capacity 16 */
+    public IntIntHashTable() {
+        this(16);
+    }
+
+    /** constructor: room for capacity mappings before the first resize */
+    public IntIntHashTable(int capacity) {
+        this(capacity, DEFAULT_ABSENT);
+    }
+
+    /** constructor: room for capacity mappings before the first resize,
+     * reporting missing keys with the given absent value */
+    public IntIntHashTable(int capacity, int absent) {
+        this.absent = absent;
+        allocate(tableSizeFor(capacity));
+    }
+
+    /** Return the value returned by getInt, putInt and removeInt when there
+     * is no mapping */
+    public int getAbsent() {
+        return absent;
+    }
+
+    /** Return the number of key-value mappings in the table */
+    public int getSize() {
+        return size;
+    }
+
+    /** Return the current capacity of the table (the number of slots) */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /** Return the value to which key is mapped, or the absent value if there
+     * is no mapping for it.
+     * Runtime: average case O(1) */
+    public int getInt(int key) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : absent;
+        }
+        int i = find(key);
+        return i < 0 ? absent : values[i];
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     *  Runtime: average case O(1) */
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        return find(key) >= 0;
+    }
+
+    /** Map key to val, returning the previous value or the absent value if
+     * there was none.
+     * Precondition: val is not the absent value.
+     * Runtime: average case O(1) */
+    public int putInt(int key, int val) {
+        if (key == FREE) {
+            int old = hasFreeKey ? freeKeyValue : absent;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = val;
+            return old;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = val;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = val;
+        size++;
+        if (size > (keys.length >> 2) * 3) {
+            grow();
+        }
+        return absent;
+    }
+
+    /** Remove the mapping for key, returning its value or the absent value if
+     * there was none.
+     * Runtime: average case O(1) */
+    public int removeInt(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return absent;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        int i = find(key);
+        if (i < 0) {
+            return absent;
+        }
+        int old = values[i];
+        // shift back later entries of the run that would otherwise become
+        // unreachable from their home slot
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == FREE) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            // keys[j] may move to i only if its home is not in (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        size--;
+        return old;
+    }
+
+    /* Return the slot holding key, or -1 if there is none.
+     * Precondition: key != FREE */
+    private int find(int key) {
+        int i = hash(key) & mask;
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /* Double the capacity and reinsert every mapping. */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != FREE) {
+                int i = hash(oldKeys[k]) & mask;
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /* Spread the key so that dense ids do not fill one run of slots. */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Return a power-of-two table size that holds n mappings under the
+     * 0.75 load factor. */
+    private static int tableSizeFor(int n) {
+        int cap = 4;
+        while ((cap >> 2) * 3 < n) {
+            cap *= 2;
+        }
+        return cap;
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A dynamic array of longs: AList specialized to a long[], so elements are
+* stored unboxed and get needs no cast. Growth copies with
+* System.arraycopy. */
+public class LongAList {
+
+  protected int size; // number of elements in the LongAList
+  protected long[] a; // the backing array storage
+
+  public int size() {
+    return size;
+  }
+
+  protected int getCap() {
+    return a.length;
+  }
+
+  /** Creates a LongAList with a default capacity of 8 */
+  public LongAList() {
+    this(8);
+  }
+
+  /** Creates a LongAList with the given capacity */
+  public LongAList(int capacity) {
+    a = new long[capacity];
+    size = 0;
+  }
+
+  /** Grows a to double its current size, or to newSize if that is larger,
+  * if newSize exceeds a's capacity. This does *not* change the size. */
+  protected void growIfNeeded(int newSize) {
+    if (newSize > a.length) {
+      long[] temp = new long[Math.max(2 * a.length, newSize)];
+      System.arraycopy(a, 0, temp, 0, a.length);
+      a = temp;
+    }
+  }
+
+  /** Resizes the LongAList.
+  *  this *does* modify the size, and may modify the capacity if newsize
+  *  exceeds capacity. New elements are 0 unless they were in use before. */
+  public void resize(int newSize) {
+    growIfNeeded(newSize);
+    size = newSize;
+  }
+
+  /** Gets element i from LongAList.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public long get(int i) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    return a[i];
+  }
+
+  /** Sets the ith element of the list to value.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public void put(int i, long value) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    a[i] = value;
+  }
+
+  /** Appends value at the end of the LongAList, increasing size by 1.
+  * Grows the array if needed to fit the appended value */
+  public void append(long value) {
+    if (size == a.length) {
+      growIfNeeded(size + 1);
+    }
+    a[size++] = value;
+  }
+
+  /** Appends all of values at the end of the LongAList, growing at most
+  * once. */
+  public void addAll(long[] values) {
+    growIfNeeded(size + values.length);
+    System.arraycopy(values, 0, a, size, values.length);
+    size += values.length;
+  }
+
+  /** Removes and returns the value at the end of the LongAList.
+  *  this *does* modify size and cannot modify capacity.
+  *  @throws NoSuchElementException if size == 0*/
+  public long pop() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    size--;
+    return a[size];
+  }
+
+  /** Returns a new array holding elements 0..size-1. */
+  public long[] toArray() {
+    return Arrays.copyOf(a, size);
+  }
+
+}
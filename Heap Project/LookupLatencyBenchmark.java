@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/** Measures the latency distribution of successful lookups, rather than
+ * their average, in the chained HashTable, RobinHoodHashTable and
+ * CuckooHashTable at high load factors. Each table is filled to the target
+ * load, then every lookup of a random stored key is timed on its own and the
+ * 50th, 99th and 99.9th percentiles and the maximum are printed. The chained
+ * table grows past a load factor of 0.8, so its achieved load is printed
+ * alongside.
+ *
+ * Single lookups are close to the resolution of System.nanoTime, so the
+ * times include the cost of reading the clock, printed on the first line;
+ * compare tables with each other rather than reading the numbers as exact.
+ * Usage: java LookupLatencyBenchmark [log2 capacity] */
+public class LookupLatencyBenchmark {
+
+    private static final int ROUNDS = 3; // report the last, warmed-up round
+
+    public static void main(String[] args) {
+        int logCap = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int capacity = 1 << logCap;
+        double[] loads = {0.8, 0.85, 0.9, 0.95};
+
+        // random distinct keys, boxed once up front since HashTable compares
+        // keys with ==, and a random order to look them up in
+        Random rnd = new Random(42);
+        Integer[] keys = new Integer[capacity];
+        IntIntHashTable seen = new IntIntHashTable(capacity);
+        for (int i = 0; i < capacity; i++) {
+            int k = rnd.nextInt();
+            while (seen.containsKey(k)) {
+                k = rnd.nextInt();
+            }
+            seen.putInt(k, i);
+            keys[i] = k;
+        }
+        int[] order = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            order[i] = rnd.nextInt(capacity);
+        }
+        System.out.println("clock overhead " + clockOverhead() + " ns");
+
+        for (double load : loads) {
+            int n = (int) (load * capacity);
+            String chained = null;
+            String robin = null;
+            String cuckoo = null;
+            for (int r = 0; r < ROUNDS; r++) {
+                chained = runChained(keys, order, n, capacity);
+                robin = runRobinHood(keys, order, n, capacity, load);
+                cuckoo = runCuckoo(keys, order, n, capacity, load);
+            }
+            System.out.println("load " + load + ":");
+            System.out.println("  chained    " + chained);
+            System.out.println("  robin hood " + robin);
+            System.out.println("  cuckoo     " + cuckoo);
+        }
+    }
+
+    private static String runChained(Integer[] keys, int[] order, int n,
+            int capacity) {
+        HashTable<Integer, Integer> t = new HashTable<Integer, Integer>(capacity);
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long[] times = new long[order.length];
+        long found = 0;
+        for (int i = 0; i < order.length; i++) {
+            Integer k = keys[order[i] % n];
+            long start = System.nanoTime();
+            Integer v = t.get(k);
+            times[i] = System.nanoTime() - start;
+            if (v != null) {
+                found++;
+            }
+        }
+        return report(((double) t.getSize()) / t.getCapacity(), found, times);
+    }
+
+    private static String runRobinHood(Integer[] keys, int[] order, int n,
+            int capacity, double maxLoad) {
+        // a little headroom so that exactly n keys fit without growing
+        RobinHoodHashTable<Integer, Integer> t =
+            new RobinHoodHashTable<Integer, Integer>(capacity,
+                    Math.min(maxLoad + 0.01, 0.99));
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long[] times = new long[order.length];
+        long found = 0;
+        for (int i = 0; i < order.length; i++) {
+            Integer k = keys[order[i] % n];
+            long start = System.nanoTime();
+            Integer v = t.get(k);
+            times[i] = System.nanoTime() - start;
+            if (v != null) {
+                found++;
+            }
+        }
+        return report(((double) t.getSize()) / t.getCapacity(), found, times)
+            + " max probe " + t.maxProbeLength();
+    }
+
+    private static String runCuckoo(Integer[] keys, int[] order, int n,
+            int capacity, double maxLoad) {
+        CuckooHashTable<Integer, Integer> t =
+            new CuckooHashTable<Integer, Integer>(capacity,
+                    Math.min(maxLoad + 0.01, 0.98));
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long[] times = new long[order.length];
+        long found = 0;
+        for (int i = 0; i < order.length; i++) {
+            Integer k = keys[order[i] % n];
+            long start = System.nanoTime();
+            Integer v = t.get(k);
+            times[i] = System.nanoTime() - start;
+            if (v != null) {
+                found++;
+            }
+        }
+        return report(((double) t.getSize()) / t.getCapacity(), found, times)
+            + " stashed " + t.getStashed();
+    }
+
+    // percentiles of the per-lookup times, in nanoseconds
+    private static String report(double load, long found, long[] times) {
+        Arrays.sort(times);
+        return String.format("(load %.2f, %d found) p50 %d  p99 %d  "
+                + "p99.9 %d  max %d ns", load, found,
+                times[times.length / 2],
+                times[(int) (times.length * 0.99)],
+                times[(int) (times.length * 0.999)],
+                times[times.length - 1]);
+    }
+
+    // median cost of two back-to-back clock reads
+    private static long clockOverhead() {
+        long[] times = new long[100000];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+}
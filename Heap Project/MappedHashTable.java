@@ -0,0 +1,372 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/** A persistent hash table from Strings to Strings that lives in a
+ * memory-mapped file. get, put and remove work directly against the
+ * mapping, so reopening an existing file is O(1): there is no load phase,
+ * and pages are read from disk only as lookups touch them.
+ *
+ * File layout (all ints little-endian):
+ *   header   MAGIC, capacity, size, arenaEnd (4 ints, HEADER bytes)
+ *   slots    capacity fixed-width slots of SLOT bytes: the key's hash
+ *            (EMPTY if unused) and the offset of its record in the file
+ *   arena    records appended one after another: key length, key bytes,
+ *            value length, value bytes (UTF-8)
+ * Slots use linear probing with backward-shift deletion. Replacing or
+ * removing a mapping leaves its old record in the arena as garbage; when
+ * the slots get too full the whole table is rewritten, which also drops
+ * the garbage, and compact() does the same on demand. Hashes are
+ * String.hashCode, which the Java specification fixes, so a file stays
+ * valid across JVMs.
+ *
+ * Changes reach the file eventually through the operating system; force()
+ * makes them durable immediately. There is no journal: if the machine
+ * crashes in the middle of an update that was never forced, the file may
+ * be left inconsistent, so callers that need crash safety should force()
+ * after each batch of updates and keep their source data until then.
+ * The whole file must fit in one mapping (just under 2GB).
+ * Sample usage:
+ *   MappedHashTable t = new MappedHashTable(new File("prefixes.tbl"));
+ *   t.put("abcde", "1");
+ *   t.force();
+ *   t.close(); */
+public class MappedHashTable implements Closeable {
+
+    private static final int MAGIC = 0x4d485431; // "MHT1"
+    private static final int HEADER = 16;
+    private static final int SLOT = 8;
+    private static final int EMPTY = 0; // slot hash of an unused slot
+
+    private static final int CAPACITY_AT = 4; // header field offsets
+    private static final int SIZE_AT = 8;
+    private static final int ARENA_END_AT = 12;
+
+    private final File file;
+    private MappedByteBuffer map;
+    private int capacity; // number of slots, a power of two
+    private int mask; // capacity - 1
+
+    /** constructor: open the table in f, creating it with room for 1024
+     * mappings if f does not exist */
+    public MappedHashTable(File f) throws IOException {
+        this(f, 1024);
+    }
+
+    /** constructor: open the table in f, or create it with room for
+     * capacity mappings before the first rewrite if f does not exist.
+     * @throws IOException if f exists but is not a table file, or cannot be
+     * read or written */
+    public MappedHashTable(File f, int capacity) throws IOException {
+        file = f;
+        if (f.exists() && f.length() > 0) {
+            map = map(f, f.length());
+            if (map.getInt(0) != MAGIC) {
+                DirectBuffers.free(map);
+                throw new IOException(f + " is not a MappedHashTable file");
+            }
+        } else {
+            create(f, slotsFor(capacity), 0);
+            map = map(f, f.length());
+        }
+        this.capacity = map.getInt(CAPACITY_AT);
+        mask = this.capacity - 1;
+    }
+
+    /** Return the number of key-value mappings in the table */
+    public int getSize() {
+        return map.getInt(SIZE_AT);
+    }
+
+    /** Return the number of slots in the table */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Return the value to which key is mapped, or null if there is none.
+     * Runtime: average case O(1) */
+    public String get(String key) {
+        int i = find(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        if (i < 0) {
+            return null;
+        }
+        int record = slotOffset(i);
+        return readString(record + 4 + map.getInt(record));
+    }
+
+    /** Return true if this table contains a mapping for key.
+     * Runtime: average case O(1) */
+    public boolean containsKey(String key) {
+        return find(key.getBytes(StandardCharsets.UTF_8), hash(key)) >= 0;
+    }
+
+    /** Map key to val, returning the previous value or null if there was
+     * none. Appends a record to the arena; grows the file or rewrites the
+     * table when needed.
+     * Precondition: val is not null.
+     * @throws UncheckedIOException if the file cannot be grown */
+    public String put(String key, String val) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = val.getBytes(StandardCharsets.UTF_8);
+        int h = hash(key);
+        try {
+            int i = find(k, h);
+            String old = null;
+            if (i >= 0) {
+                int record = slotOffset(i);
+                old = readString(record + 4 + map.getInt(record));
+            } else if (getSize() + 1 > capacity / 4 * 3) {
+                rewrite(capacity * 2);
+            }
+            int record = append(k, v);
+            if (i < 0) {
+                i = h & mask;
+                while (slotHash(i) != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                map.putInt(slotAt(i) + 4, record);
+                map.putInt(slotAt(i), h);
+                map.putInt(SIZE_AT, getSize() + 1);
+            } else {
+                map.putInt(slotAt(i) + 4, record);
+            }
+            return old;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Remove the mapping for key, returning its value or null if there was
+     * none.
+     * Runtime: average case O(1) */
+    public String remove(String key) {
+        int i = find(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        if (i < 0) {
+            return null;
+        }
+        int record = slotOffset(i);
+        String old = readString(record + 4 + map.getInt(record));
+        // shift back later entries of the run that would otherwise become
+        // unreachable from their home slot
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slotHash(j) == EMPTY) {
+                break;
+            }
+            int home = slotHash(j) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                map.putInt(slotAt(i) + 4, slotOffset(j));
+                map.putInt(slotAt(i), slotHash(j));
+                i = j;
+            }
+        }
+        map.putInt(slotAt(i), EMPTY);
+        map.putInt(SIZE_AT, getSize() - 1);
+        return old;
+    }
+
+    /** Rewrite the file without the garbage records left by replaced and
+     * removed mappings. Takes time proportional to the size of the table.
+     * @throws UncheckedIOException if the new file cannot be written */
+    public void compact() {
+        try {
+            rewrite(capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Write all changes made so far through to the file. */
+    public void force() {
+        map.force();
+    }
+
+    /** Force all changes to the file and unmap it. The table may not be
+     * used afterwards. */
+    @Override
+    public void close() {
+        if (map != null) {
+            map.force();
+            DirectBuffers.free(map);
+            map = null;
+        }
+    }
+
+    /* Return the slot holding key (as UTF-8 bytes k with hash h), or -1. */
+    private int find(byte[] k, int h) {
+        int i = h & mask;
+        while (slotHash(i) != EMPTY) {
+            if (slotHash(i) == h && keyEquals(slotOffset(i), k)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /* Return true if the record at offset has key bytes k. */
+    private boolean keyEquals(int record, byte[] k) {
+        if (map.getInt(record) != k.length) {
+            return false;
+        }
+        for (int b = 0; b < k.length; b++) {
+            if (map.get(record + 4 + b) != k[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Append the record (k, v) to the arena, growing the file if needed;
+     * return its offset. */
+    private int append(byte[] k, byte[] v) throws IOException {
+        int end = map.getInt(ARENA_END_AT);
+        long needed = (long) end + 8 + k.length + v.length;
+        if (needed > map.capacity()) {
+            long size = map.capacity();
+            while (size < needed) {
+                size *= 2;
+            }
+            if (size > Integer.MAX_VALUE) {
+                size = Integer.MAX_VALUE;
+                if (needed > size) {
+                    throw new IOException(file + " is full");
+                }
+            }
+            // map the larger file before letting go of the old mapping, so
+            // that a failure leaves the table usable
+            MappedByteBuffer grown = map(file, size);
+            map.force();
+            DirectBuffers.free(map);
+            map = grown;
+        }
+        map.putInt(end, k.length);
+        map.put(end + 4, k);
+        map.putInt(end + 4 + k.length, v.length);
+        map.put(end + 8 + k.length, v);
+        map.putInt(ARENA_END_AT, (int) needed);
+        return end;
+    }
+
+    /* Copy every live mapping into a fresh file with newCapacity slots,
+     * then atomically replace the current file with it. */
+    private void rewrite(int newCapacity) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        tmp.delete();
+        create(tmp, newCapacity, map.getInt(ARENA_END_AT));
+        try (MappedHashTable t = new MappedHashTable(tmp)) {
+            for (int i = 0; i < capacity; i++) {
+                if (slotHash(i) != EMPTY) {
+                    int record = slotOffset(i);
+                    int keyLen = map.getInt(record);
+                    byte[] k = new byte[keyLen];
+                    map.get(record + 4, k);
+                    byte[] v = new byte[map.getInt(record + 4 + keyLen)];
+                    map.get(record + 8 + keyLen, v);
+                    int at = t.append(k, v);
+                    int j = slotHash(i) & t.mask;
+                    while (t.slotHash(j) != EMPTY) {
+                        j = (j + 1) & t.mask;
+                    }
+                    t.map.putInt(t.slotAt(j) + 4, at);
+                    t.map.putInt(t.slotAt(j), slotHash(i));
+                }
+            }
+            t.map.putInt(SIZE_AT, getSize());
+        }
+        // map the new file and move it into place before unmapping the old
+        // one: if either fails, the table still works against the old file.
+        // The mapping follows the file through the rename.
+        MappedByteBuffer fresh = map(tmp, tmp.length());
+        try {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            DirectBuffers.free(fresh);
+            throw e;
+        }
+        DirectBuffers.free(map);
+        map = fresh;
+        capacity = newCapacity;
+        mask = capacity - 1;
+    }
+
+    /* Create f as an empty table with the given number of slots and room
+     * for arenaBytes of records. */
+    private static void create(File f, int slots, int arenaBytes)
+        throws IOException {
+        long arenaStart = HEADER + (long) slots * SLOT;
+        long length = arenaStart + Math.max(arenaBytes, slots * 32L);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("table too large for one mapping");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.setLength(0);
+            raf.setLength(length); // zero-filled, so every slot is EMPTY
+            MappedByteBuffer m = raf.getChannel().map(
+                    FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            m.order(ByteOrder.LITTLE_ENDIAN);
+            m.putInt(CAPACITY_AT, slots);
+            m.putInt(SIZE_AT, 0);
+            m.putInt(ARENA_END_AT, (int) arenaStart);
+            m.putInt(0, MAGIC);
+            m.force();
+            DirectBuffers.free(m);
+        }
+    }
+
+    /* Map the first length bytes of f, extending it if shorter. */
+    private static MappedByteBuffer map(File f, long length)
+        throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            MappedByteBuffer m = raf.getChannel().map(
+                    FileChannel.MapMode.READ_WRITE, 0, length);
+            m.order(ByteOrder.LITTLE_ENDIAN);
+            return m;
+        }
+    }
+
+    private int slotAt(int i) {
+        return HEADER + i * SLOT;
+    }
+
+    private int slotHash(int i) {
+        return map.getInt(slotAt(i));
+    }
+
+    private int slotOffset(int i) {
+        return map.getInt(slotAt(i) + 4);
+    }
+
+    /* Read the length-prefixed UTF-8 string at offset. */
+    private String readString(int offset) {
+        byte[] b = new byte[map.getInt(offset)];
+        map.get(offset + 4, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /* Spread String.hashCode and mark it as used (never EMPTY). */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) | Integer.MIN_VALUE;
+    }
+
+    /* Return a power-of-two slot count holding n mappings at load 0.75. */
+    private static int slotsFor(int n) {
+        int cap = 4;
+        while (cap / 4 * 3 < n) {
+            cap *= 2;
+        }
+        return cap;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** A relaxed concurrent min-priority queue (a "MultiQueue") of distinct
+ *  values of type V with priorities of type P. Instead of one Heap behind
+ *  one lock, the queue is split into c * threads shards, each an ordinary
+ *  Heap guarded by its own lock. add puts the value into a random shard,
+ *  and poll peeks at two random shards and removes the root of whichever
+ *  has the smaller priority. Locks are only ever tried, never waited on,
+ *  on these paths, so threads that collide just pick other shards.
+ *
+ *  Because poll only looks at two shards, it does not always return the
+ *  global minimum. The rank error (how many values in the whole queue have
+ *  a smaller priority than the one returned) is O(n) in expectation and
+ *  O(n log n) with high probability, where n = c * threads is the number of
+ *  shards. A larger c lowers contention but makes poll less exact.
+ *
+ *  contains and changePriority are supported through a concurrent index
+ *  from each value to the shard that holds it. */
+public final class MultiQueue<V, P extends Comparable<P>> {
+
+    /** One shard of the queue. top caches the root priority of heap so
+     *  that poll can compare shards without locking them; it is only
+     *  written while lock is held and is null when heap is empty. */
+    private final class Shard {
+        final Heap<V, P> heap = new Heap<V, P>();
+        final ReentrantLock lock = new ReentrantLock();
+        volatile P top;
+
+        /** Refresh top after heap has changed. Lock must be held. */
+        void updateTop() {
+            top = heap.size() == 0 ? null : heap.peekPriority();
+        }
+    }
+
+    private final Shard[] shards;
+    private final ConcurrentHashMap<V, Shard> index; // value -> its shard
+    private final AtomicInteger size;
+
+    /** Constructor: an empty queue with 2 shards per thread. */
+    public MultiQueue(int threads) {
+        this(threads, 2);
+    }
+
+    /** Constructor: an empty queue with c shards per thread.
+     *  @throws IllegalArgumentException if threads or c is less than 1. */
+    @SuppressWarnings("unchecked")
+    public MultiQueue(int threads, int c) {
+        if (threads < 1 || c < 1) {
+            throw new IllegalArgumentException();
+        }
+        shards = (Shard[]) new MultiQueue<?, ?>.Shard[threads * c];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        index = new ConcurrentHashMap<V, Shard>();
+        size = new AtomicInteger();
+    }
+
+    /** Return the number of values in the queue. Under concurrent updates
+     *  this is only a snapshot. */
+    public int size() {
+        return size.get();
+    }
+
+    /** Return the number of shards (c * threads). */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /** Add v with priority p to a random shard.
+     *  Precondition: p is not null.
+     *  @throws IllegalArgumentException if v is already in the queue. */
+    public void add(V v, P p) throws IllegalArgumentException {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Shard s;
+        while (true) {
+            s = shards[rnd.nextInt(shards.length)];
+            if (s.lock.tryLock()) {
+                break;
+            }
+        }
+        // count v before it can be seen, so that a concurrent poll of it
+        // never takes size below zero
+        size.incrementAndGet();
+        boolean added = false;
+        try {
+            if (index.putIfAbsent(v, s) != null) {
+                throw new IllegalArgumentException();
+            }
+            s.heap.add(v, p);
+            s.updateTop();
+            added = true;
+        } finally {
+            if (!added) {
+                size.decrementAndGet();
+            }
+            s.lock.unlock();
+        }
+    }
+
+    /** Remove and return a value with a small priority: the root of the
+     *  better of two randomly chosen shards. See the class comment for how
+     *  far from the true minimum this can be.
+     *  @throws NoSuchElementException if the queue is empty. */
+    public V poll() throws NoSuchElementException {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        // a few rounds of two-choice sampling before falling back to a scan,
+        // so that a nearly empty queue still finds its last values
+        for (int attempt = 0; attempt < 4 * shards.length; attempt++) {
+            Shard a = shards[rnd.nextInt(shards.length)];
+            Shard b = shards[rnd.nextInt(shards.length)];
+            P pa = a.top;
+            P pb = b.top;
+            if (pa == null && pb == null) {
+                continue;
+            }
+            Shard best = (pb == null || (pa != null && pa.compareTo(pb) <= 0))
+                    ? a : b;
+            if (!best.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (best.heap.size() == 0) {
+                    continue; // emptied since we read top
+                }
+                return pollLocked(best);
+            } finally {
+                best.lock.unlock();
+            }
+        }
+        return pollScan();
+    }
+
+    /* Remove the root of s. Precondition: s.lock is held, s is nonempty. */
+    private V pollLocked(Shard s) {
+        V v = s.heap.poll();
+        s.updateTop();
+        index.remove(v);
+        size.decrementAndGet();
+        return v;
+    }
+
+    /* Slow path for poll: visit every shard, waiting on its lock, and remove
+     * the smallest root found. Only used when sampling keeps missing. Values
+     * may move between shards while it looks, so it rescans until one is
+     * found or size shows the queue is empty. size counts a value from just
+     * before its add publishes it, so a rescan may briefly wait for that. */
+    private V pollScan() throws NoSuchElementException {
+        while (size.get() > 0) {
+            Shard best = null;
+            P bestP = null;
+            for (Shard s : shards) {
+                P p = s.top;
+                if (p != null && (bestP == null || p.compareTo(bestP) < 0)) {
+                    best = s;
+                    bestP = p;
+                }
+            }
+            if (best == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            best.lock.lock();
+            try {
+                if (best.heap.size() != 0) {
+                    return pollLocked(best);
+                }
+            } finally {
+                best.lock.unlock();
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    /** Return true if the value v is in the queue, false otherwise.
+     *  A value being added concurrently may be reported slightly early.
+     *  The average case runtime is O(1). */
+    public boolean contains(V v) {
+        return index.containsKey(v);
+    }
+
+    /** Change the priority of value v to p. This waits on the lock of the
+     *  shard holding v.
+     *  @throws IllegalArgumentException if v is not in the queue. */
+    public void changePriority(V v, P p) throws IllegalArgumentException {
+        while (true) {
+            Shard s = index.get(v);
+            if (s == null) {
+                throw new IllegalArgumentException();
+            }
+            s.lock.lock();
+            try {
+                // index entries for s only change while s.lock is held, so if
+                // v still maps to s here, v is in s.heap. Otherwise v was
+                // polled (and maybe re-added elsewhere) after the lookup.
+                if (index.get(v) == s) {
+                    s.heap.changePriority(v, p);
+                    s.updateTop();
+                    return;
+                }
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+}
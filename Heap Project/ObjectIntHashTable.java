@@ -0,0 +1,174 @@
+/** A hash table from objects to primitive ints, for index maps such as the
+ * value-to-position map in Heap. Values are stored unboxed in an int array
+ * next to a flat array of keys, so get, put and remove allocate nothing once
+ * the table has grown to its working size.
+ *
+ * Since an int cannot be null, a missing mapping is reported with a
+ * sentinel value, the "absent" value (by default -1), which therefore
+ * cannot itself be stored. Keys are compared with equals.
+ *
+ * Collisions are resolved by linear probing in a power-of-two table that
+ * doubles when the load factor would exceed 0.75; removal shifts later
+ * entries of the probe run back instead of leaving tombstones. */
+public class ObjectIntHashTable<K> {
+
+    /** the absent value used by the default constructors */
+    public static final int DEFAULT_ABSENT = -1;
+
+    private Object[] keys; // null for an unused slot
+    private int[] values;
+    private int mask; // capacity - 1
+    private int size;
+    private final int absent;
+
+    /** constructor: initialize with default capacity 16 */
+    public ObjectIntHashTable() {
+        this(16);
+    }
+
+    /** constructor: room for capacity mappings before the first resize */
+    public ObjectIntHashTable(int capacity) {
+        this(capacity, DEFAULT_ABSENT);
+    }
+
+    /** constructor: room for capacity mappings before the first resize,
+     * reporting missing keys with the given absent value */
+    public ObjectIntHashTable(int capacity, int absent) {
+        this.absent = absent;
+        allocate(tableSizeFor(capacity));
+    }
+
+    /** Return the value returned by getInt, putInt and removeInt when there
+     * is no mapping */
+    public int getAbsent() {
+        return absent;
+    }
+
+    /** Return the number of key-value mappings in the table */
+    public int getSize() {
+        return size;
+    }
+
+    /** Return the current capacity of the table (the number of slots) */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /** Return the value to which key is mapped, or the absent value if there
+     * is no mapping for it.
+     * Runtime: average case O(1) */
+    public int getInt(K key) {
+        int i = find(key);
+        return i < 0 ? absent : values[i];
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     *  Runtime: average case O(1) */
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    /** Map key to val, returning the previous value or the absent value if
+     * there was none.
+     * Precondition: val is not the absent value.
+     * Runtime: average case O(1) */
+    public int putInt(K key, int val) {
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (key.equals(keys[i])) {
+                int old = values[i];
+                values[i] = val;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = val;
+        size++;
+        if (size > (keys.length >> 2) * 3) {
+            grow();
+        }
+        return absent;
+    }
+
+    /** Remove the mapping for key, returning its value or the absent value if
+     * there was none.
+     * Runtime: average case O(1) */
+    public int removeInt(K key) {
+        int i = find(key);
+        if (i < 0) {
+            return absent;
+        }
+        int old = values[i];
+        // shift back later entries of the run that would otherwise become
+        // unreachable from their home slot
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            // keys[j] may move to i only if its home is not in (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        size--;
+        return old;
+    }
+
+    /* Return the slot holding key, or -1 if there is none. */
+    private int find(K key) {
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (key.equals(keys[i])) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /* Double the capacity and reinsert every mapping. */
+    private void grow() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != null) {
+                int i = hash(oldKeys[k]) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /* Spread the key's hashCode so the low bits depend on all of its bits. */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Return a power-of-two table size that holds n mappings under the
+     * 0.75 load factor. */
+    private static int tableSizeFor(int n) {
+        int cap = 4;
+        while ((cap >> 2) * 3 < n) {
+            cap *= 2;
+        }
+        return cap;
+    }
+}
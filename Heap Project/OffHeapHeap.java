@@ -0,0 +1,271 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.NoSuchElementException;
+
+/** A min-heap of distinct int value ids with long priorities, stored
+ *  entirely outside the Java heap. It has the same operations as Heap, but
+ *  instead of an AList of Entry objects and a HashTable of boxed positions,
+ *  the tree lives in one direct ByteBuffer of (priority, id) slots and the
+ *  position of each id lives in a second direct ByteBuffer indexed by id.
+ *  The garbage collector therefore sees two objects no matter how many
+ *  values are queued, so queues with tens of millions of values add nothing
+ *  to GC pause times.
+ *
+ *  Ids must be non-negative and should be dense, since the position index
+ *  has one slot per id up to the largest id seen. Double priorities can be
+ *  stored with encode(double) and read back with decode(long); the encoding
+ *  preserves order.
+ *
+ *  Memory is released by close(); a closed heap may not be used again. */
+public final class OffHeapHeap implements AutoCloseable {
+
+    private static final int SLOT = 12; // long priority + int id
+    private static final int ABSENT = -1;
+
+    /**
+     * heap holds a complete binary tree in slots 0..size-1, laid out like
+     * Heap's c: slot i's children are slots 2i+1 and 2i+2. Slot i is the
+     * long priority at byte SLOT*i followed by the int id at SLOT*i + 8.
+     *
+     * Class Invariants:
+     *   1. If slot i has a parent, the parent's priority is <= slot i's.
+     *   2. pos holds one int per id in 0..idCapacity-1: the slot of that id
+     *      if it is in the heap, ABSENT otherwise.
+     */
+    private ByteBuffer heap;
+    private ByteBuffer pos;
+    private int size;
+    private int idCapacity;
+
+    /** Constructor: an empty heap with room for 1024 values and ids. */
+    public OffHeapHeap() {
+        this(1024, 1024);
+    }
+
+    /** Constructor: an empty heap with room for capacity values and for ids
+     *  below idCapacity. Both grow by doubling when exceeded. */
+    public OffHeapHeap(int capacity, int idCapacity) {
+        heap = allocate(Math.max(capacity, 1) * SLOT);
+        this.idCapacity = Math.max(idCapacity, 1);
+        pos = allocate(this.idCapacity * 4);
+        for (int i = 0; i < this.idCapacity; i++) {
+            pos.putInt(i * 4, ABSENT);
+        }
+        size = 0;
+    }
+
+    /** Return the number of values in this heap. */
+    public int size() {
+        return size;
+    }
+
+    /** Add id v with priority p to the heap. Logarithmic time, plus
+     *  amortized constant time for growing the buffers.
+     *  @throws IllegalArgumentException if v is negative or already in the
+     *  heap. */
+    public void add(int v, long p) throws IllegalArgumentException {
+        if (v < 0) {
+            throw new IllegalArgumentException("negative id " + v);
+        }
+        if (contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        growIfNeeded(size + 1);
+        growIdsIfNeeded(v);
+        set(size, p, v);
+        size++;
+        bubbleUp(size - 1);
+    }
+
+    /** Return the id in this heap with lowest priority. Do not change the
+     *  heap. This operation takes constant time.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public int peek() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return id(0);
+    }
+
+    /** Return the lowest priority in this heap.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public long peekPriority() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return priority(0);
+    }
+
+    /** Remove and return the id in this heap with lowest priority.
+     *  Logarithmic time.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public int poll() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int v = id(0);
+        pos.putInt(v * 4, ABSENT);
+        size--;
+        if (size > 0) {
+            set(0, priority(size), id(size));
+            bubbleDown(0);
+        }
+        return v;
+    }
+
+    /** Return true if id v is in the heap, false otherwise. Constant time. */
+    public boolean contains(int v) {
+        return v >= 0 && v < idCapacity && pos.getInt(v * 4) != ABSENT;
+    }
+
+    /** Return the priority of id v.
+     *  @throws IllegalArgumentException if v is not in the heap. */
+    public long getPriority(int v) throws IllegalArgumentException {
+        if (!contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        return priority(pos.getInt(v * 4));
+    }
+
+    /** Change the priority of id v to p. Logarithmic time.
+     *  @throws IllegalArgumentException if v is not in the heap. */
+    public void changePriority(int v, long p) throws IllegalArgumentException {
+        if (!contains(v)) {
+            throw new IllegalArgumentException();
+        }
+        int k = pos.getInt(v * 4);
+        long old = priority(k);
+        heap.putLong(k * SLOT, p);
+        if (old > p) {
+            bubbleUp(k);
+        } else {
+            bubbleDown(k);
+        }
+    }
+
+    /** Release the off-heap memory now rather than when the buffers are
+     *  garbage collected. The heap must not be used afterwards. */
+    @Override
+    public void close() {
+        if (heap != null) {
+            DirectBuffers.free(heap);
+            DirectBuffers.free(pos);
+            heap = null;
+            pos = null;
+            size = 0;
+            idCapacity = 0;
+        }
+    }
+
+    /** Return a long whose signed order matches the order of the double d,
+     *  for storing double priorities (NaN sorts above +infinity). */
+    public static long encode(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+    }
+
+    /** Inverse of encode. */
+    public static double decode(long p) {
+        return Double.longBitsToDouble(p < 0 ? p ^ Long.MAX_VALUE : p);
+    }
+
+    /* Move slot k up until its parent's priority is not larger. The moving
+     * slot is held in locals and written once at its final place. */
+    private void bubbleUp(int k) {
+        long p = priority(k);
+        int v = id(k);
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            long pp = priority(parent);
+            if (pp <= p) {
+                break;
+            }
+            set(k, pp, id(parent));
+            k = parent;
+        }
+        set(k, p, v);
+    }
+
+    /* Move slot k down until no child has a smaller priority. As in Heap,
+     * ties between the children go to the right child and a child with an
+     * equal priority is not swapped. */
+    private void bubbleDown(int k) {
+        long p = priority(k);
+        int v = id(k);
+        while (2 * k + 1 < size) {
+            int child = 2 * k + 1;
+            if (child + 1 < size && priority(child) >= priority(child + 1)) {
+                child++;
+            }
+            long cp = priority(child);
+            if (cp >= p) {
+                break;
+            }
+            set(k, cp, id(child));
+            k = child;
+        }
+        set(k, p, v);
+    }
+
+    private long priority(int k) {
+        return heap.getLong(k * SLOT);
+    }
+
+    private int id(int k) {
+        return heap.getInt(k * SLOT + 8);
+    }
+
+    /* Write (p, v) into slot k and record k as v's position. */
+    private void set(int k, long p, int v) {
+        heap.putLong(k * SLOT, p);
+        heap.putInt(k * SLOT + 8, v);
+        pos.putInt(v * 4, k);
+    }
+
+    /* Double the heap buffer until it holds n slots. */
+    private void growIfNeeded(int n) {
+        int cap = heap.capacity() / SLOT;
+        if (n > cap) {
+            while (cap < n) {
+                cap = checkedDouble(cap, SLOT);
+            }
+            ByteBuffer bigger = allocate(cap * SLOT);
+            heap.position(0).limit(size * SLOT);
+            bigger.put(heap);
+            DirectBuffers.free(heap);
+            heap = bigger;
+        }
+    }
+
+    /* Double the position index until id v fits. */
+    private void growIdsIfNeeded(int v) {
+        if (v >= idCapacity) {
+            int cap = idCapacity;
+            while (cap <= v) {
+                cap = checkedDouble(cap, 4);
+            }
+            ByteBuffer bigger = allocate(cap * 4);
+            pos.position(0).limit(idCapacity * 4);
+            bigger.put(pos);
+            for (int i = idCapacity; i < cap; i++) {
+                bigger.putInt(i * 4, ABSENT);
+            }
+            DirectBuffers.free(pos);
+            pos = bigger;
+            idCapacity = cap;
+        }
+    }
+
+    /* Return 2 * n, capped so that n * width still fits in a ByteBuffer. */
+    private static int checkedDouble(int n, int width) {
+        int max = Integer.MAX_VALUE / width;
+        if (n >= max) {
+            throw new IllegalStateException("OffHeapHeap is full");
+        }
+        return (int) Math.min(2L * n, max);
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.NoSuchElementException;
+
+/** A monotone min-priority queue (a radix heap) of distinct values of type V
+ *  with non-negative long priorities. It is monotone in that no value may
+ *  ever be given a priority smaller than the last priority extracted, which
+ *  is exactly the case in Dijkstra-style searches with non-negative edge
+ *  weights. In exchange, add is O(1) and poll is amortized O(log C), where C
+ *  is the largest difference between a priority in the heap and the last
+ *  extracted one, instead of needing O(log n) comparisons per operation.
+ *  The API mirrors Heap: add, peek, poll, contains and changePriority. */
+public final class RadixHeap<V> {
+
+    /**
+     * Values are kept in 65 buckets relative to last, the most recently
+     * extracted priority (0 before the first poll).
+     *
+     * Class Invariants:
+     *   1. Every priority in the heap is >= last.
+     *   2. An entry with priority p lives in bucket bucketOf(p): bucket 0
+     *      if p == last, otherwise 1 + the index of the highest bit in
+     *      which p and last differ. Every priority in bucket i is smaller
+     *      than every priority in bucket j > i.
+     *   3. For each entry e, buckets[e.bucket].get(e.pos) == e.
+     *   4. map contains one entry for each value in the heap, mapping it to
+     *      its Entry, so map.getSize() == size.
+     */
+    private AList<Entry>[] buckets;
+    private HashTable<V, Entry> map;
+    private long last;
+    private int size;
+    private Entry min; // an entry of lowest priority, or null if not known
+
+    /** Constructor: an empty heap. */
+    public RadixHeap() {
+        buckets = createBucketArray(65);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new AList<Entry>(4);
+        }
+        map = new HashTable<V, Entry>();
+        last = 0;
+        size = 0;
+    }
+
+    /** An Entry contains a value, its priority and where it is stored. */
+    private class Entry {
+        V value;
+        long priority;
+        int bucket; // index into buckets
+        int pos; // index into buckets[bucket]
+
+        /** An Entry with value v and priority p */
+        Entry(V v, long p) {
+            value = v;
+            priority = p;
+        }
+    }
+
+    /** Return the number of values in this heap. */
+    public int size() {
+        return size;
+    }
+
+    /** Return the smallest priority that may still be added: the priority
+     *  of the last value returned by poll (0 before any). Peeking does not
+     *  change it. */
+    public long lastExtracted() {
+        return last;
+    }
+
+    /** Add v with priority p to the heap. This takes expected O(1) time.
+     *  @throws IllegalArgumentException if v is already in the heap, or if
+     *  p is smaller than lastExtracted(). */
+    public void add(V v, long p) throws IllegalArgumentException {
+        if (p < last) {
+            throw new IllegalArgumentException("non-monotone priority " + p
+                    + " < " + last);
+        }
+        if (map.containsKey(v)) {
+            throw new IllegalArgumentException();
+        }
+        Entry e = new Entry(v, p);
+        map.put(v, e);
+        insert(e);
+        size++;
+        min = null;
+    }
+
+    /** Return the value of this heap with lowest priority. Do not change
+     *  the contents of the heap.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public V peek() throws NoSuchElementException {
+        return findMin().value;
+    }
+
+    /** Return the lowest priority in this heap. Do not change the contents
+     *  of the heap.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public long peekPriority() throws NoSuchElementException {
+        return findMin().priority;
+    }
+
+    /** Remove and return the value of this heap with lowest priority.
+     *  Amortized O(log C) time.
+     *  @throws NoSuchElementException if the heap is empty. */
+    public V poll() throws NoSuchElementException {
+        Entry e = findMin();
+        extract(e);
+        map.remove(e.value);
+        size--;
+        min = null;
+        return e.value;
+    }
+
+    /** Return true if the value v is in the heap, false otherwise.
+     *  The average case runtime is O(1). */
+    public boolean contains(V v) {
+        return map.containsKey(v);
+    }
+
+    /** Change the priority of value v to p. This is usually a decrease-key,
+     *  but any p >= lastExtracted() is accepted. Expected O(1) time.
+     *  @throws IllegalArgumentException if v is not in the heap, or if p is
+     *  smaller than lastExtracted(). */
+    public void changePriority(V v, long p) throws IllegalArgumentException {
+        Entry e = map.get(v);
+        if (e == null) {
+            throw new IllegalArgumentException();
+        }
+        if (p < last) {
+            throw new IllegalArgumentException("non-monotone priority " + p
+                    + " < " + last);
+        }
+        detach(e);
+        e.priority = p;
+        insert(e);
+        min = null;
+    }
+
+    /* Return the bucket a priority p >= last belongs in. */
+    private int bucketOf(long p) {
+        return p == last ? 0 : 64 - Long.numberOfLeadingZeros(p ^ last);
+    }
+
+    /* Append e to the bucket for its priority. */
+    private void insert(Entry e) {
+        e.bucket = bucketOf(e.priority);
+        e.pos = buckets[e.bucket].size();
+        buckets[e.bucket].append(e);
+    }
+
+    /* Remove e from its bucket by moving the bucket's last entry into its
+     * slot. */
+    private void detach(Entry e) {
+        AList<Entry> b = buckets[e.bucket];
+        Entry moved = b.pop();
+        if (moved != e) {
+            b.put(e.pos, moved);
+            moved.pos = e.pos;
+        }
+    }
+
+    /* Return an entry with the lowest priority without moving any entries
+     * or changing last, which would forbid adding priorities between the
+     * last extracted one and the minimum. Every entry of bucket 0 has
+     * priority last, so its final entry is returned in O(1). Otherwise the
+     * lowest nonempty bucket is scanned, and the entry found is remembered
+     * until the heap next changes so that repeated peeks scan only once. */
+    private Entry findMin() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        AList<Entry> zero = buckets[0];
+        if (zero.size() != 0) {
+            return zero.get(zero.size() - 1);
+        }
+        if (min == null) {
+            int i = 1;
+            while (buckets[i].size() == 0) {
+                i++;
+            }
+            AList<Entry> b = buckets[i];
+            min = b.get(0);
+            for (int k = 1; k < b.size(); k++) {
+                if (b.get(k).priority < min.priority) {
+                    min = b.get(k);
+                }
+            }
+        }
+        return min;
+    }
+
+    /* Make e, an entry of lowest priority, the last extracted: if it is not
+     * in bucket 0, last becomes its priority and the other entries of its
+     * bucket are redistributed into lower buckets. Each entry can only move
+     * down, so this is paid for by the O(log C) buckets an entry can pass
+     * through. */
+    private void extract(Entry e) {
+        if (e.bucket != 0) {
+            AList<Entry> b = buckets[e.bucket];
+            last = e.priority;
+            while (b.size() > 0) {
+                insert(b.pop());
+            }
+        }
+        detach(e);
+    }
+
+    /*  Create and return an array of n buckets. The casting and warning
+     *  suppression is necessary because generics and arrays don't play well
+     *  together.*/
+    @SuppressWarnings("unchecked")
+    private AList<Entry>[] createBucketArray(int n) {
+        return (AList<Entry>[]) new AList<?>[n];
+    }
+}
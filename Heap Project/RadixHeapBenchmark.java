@@ -0,0 +1,62 @@
+import java.util.Random;
+
+/** Compares RadixHeap against Heap on monotone, bounded-integer workloads:
+ *  each step polls the minimum m and adds a value with priority m + r for a
+ *  random r in [0, C), the access pattern of Dijkstra on integer weights.
+ *  Usage: java RadixHeapBenchmark [queueSize] [operations] */
+public class RadixHeapBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        long[] ranges = {16, 1024, 1 << 20, 1L << 40};
+
+        // values are boxed once up front; HashTable compares keys with ==
+        Integer[] values = new Integer[n + ops];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        for (long c : ranges) {
+            // run each twice and report the second, warmed-up run
+            runHeap(values, n, ops, c);
+            runRadix(values, n, ops, c);
+            long heapTime = runHeap(values, n, ops, c);
+            long radixTime = runRadix(values, n, ops, c);
+            System.out.println("C = " + c + ": Heap " + heapTime / 1000000
+                    + " ms, RadixHeap " + radixTime / 1000000 + " ms");
+        }
+    }
+
+    // returns elapsed nanoseconds for the Heap run
+    private static long runHeap(Integer[] values, int n, int ops, long c) {
+        Random rnd = new Random(42);
+        Heap<Integer, Long> h = new Heap<Integer, Long>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            h.add(values[i], (long) (rnd.nextDouble() * c));
+        }
+        for (int i = 0; i < ops; i++) {
+            long m = h.peekPriority();
+            h.poll();
+            h.add(values[n + i], m + (long) (rnd.nextDouble() * c));
+        }
+        return System.nanoTime() - start;
+    }
+
+    // returns elapsed nanoseconds for the RadixHeap run
+    private static long runRadix(Integer[] values, int n, int ops, long c) {
+        Random rnd = new Random(42);
+        RadixHeap<Integer> h = new RadixHeap<Integer>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            h.add(values[i], (long) (rnd.nextDouble() * c));
+        }
+        for (int i = 0; i < ops; i++) {
+            long m = h.peekPriority();
+            h.poll();
+            h.add(values[n + i], m + (long) (rnd.nextDouble() * c));
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,229 @@
+/** A hash table with the same get/put/remove/containsKey/getSize contract
+ * as HashTable, using open addressing instead of chaining. Keys, values and
+ * hash codes live in three flat parallel arrays, so a lookup walks
+ * consecutive slots of the same arrays instead of following Pair pointers,
+ * and no object is allocated per mapping.
+ *
+ * Collisions are resolved by linear probing with Robin Hood displacement:
+ * on insertion, an entry that is further from its home slot takes the slot
+ * of one that is closer to home, which keeps probe lengths short and nearly
+ * equal. Removal uses backward-shift deletion (the entries after the
+ * removed one move back a slot) instead of tombstones, so lookups never
+ * slow down after many removals. Keys are compared with equals. */
+public class RobinHoodHashTable<K,V> {
+
+    private static final int EMPTY = 0; // hashes[i] for an unused slot
+
+    /**
+     * Class Invariants:
+     *   1. capacity (keys.length) is a power of two and mask = capacity - 1.
+     *   2. hashes[i] == EMPTY iff slot i is unused; otherwise keys[i] and
+     *      values[i] hold a mapping and hashes[i] is its spread hash with
+     *      the top bit set (so it is never EMPTY).
+     *   3. An entry with hash h is stored at or after its home slot
+     *      h & mask, with no unused slot in between, and entries appear in
+     *      nondecreasing order of home slot along each run (Robin Hood).
+     *   4. size <= maxLoad * capacity.
+     */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private final double maxLoad;
+
+    /** constructor: initialize with default capacity 16 and maximum load
+     * factor 0.8 */
+    public RobinHoodHashTable() {
+        this(16, 0.8);
+    }
+
+    /** constructor: initialize with at least the given capacity (rounded up
+     * to a power of two). The table doubles when an insertion would push the
+     * load factor above maxLoad.
+     * @throws IllegalArgumentException unless 0 < maxLoad < 1 */
+    public RobinHoodHashTable(int capacity, double maxLoad) {
+        if (!(maxLoad > 0 && maxLoad < 1)) {
+            throw new IllegalArgumentException("bad load factor " + maxLoad);
+        }
+        this.maxLoad = maxLoad;
+        allocate(tableSizeFor(capacity));
+    }
+
+    /** Return the size of the map (the number of key-value mappings in the
+     * table) */
+    public int getSize() {
+        return size;
+    }
+
+    /** Return the current capacity of the table (the number of slots) */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /** Return the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * Runtime: average case O(1) */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = find(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     *  Runtime: average case O(1) */
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    /** Associate the specified value with the specified key in this map. If
+     * the map previously contained a mapping for the key, the old value is
+     * replaced. Return the previous value associated with key, or null if
+     * there was no mapping for key.
+     * Precondition: val is not null.
+     * Runtime: average case O(1); O(size) when the table grows */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V val) {
+        int h = hash(key);
+        int i = h & mask;
+        int dist = 0;
+        // look for the key, stopping where Robin Hood says it cannot be
+        while (hashes[i] != EMPTY && probeDistance(hashes[i], i) >= dist) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                V old = (V) values[i];
+                values[i] = val;
+                return old;
+            }
+            i = (i + 1) & mask;
+            dist++;
+        }
+        if (size + 1 > maxLoad * keys.length) {
+            grow();
+        }
+        insert(h, key, val);
+        size++;
+        return null;
+    }
+
+    /** Remove the mapping for the specified key from this map if present.
+     *  Return the previous value associated with key, or null if there was no
+     *  mapping for key.
+     *  Runtime: average case O(1) */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        // backward shift: pull each following displaced entry back one slot
+        int next = (i + 1) & mask;
+        while (hashes[next] != EMPTY && probeDistance(hashes[next], next) > 0) {
+            hashes[i] = hashes[next];
+            keys[i] = keys[next];
+            values[i] = values[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+        hashes[i] = EMPTY;
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    /** Return the length of the longest probe sequence in the table, for
+     * tuning: a lookup never inspects more than this many slots plus one. */
+    public int maxProbeLength() {
+        int max = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != EMPTY) {
+                max = Math.max(max, probeDistance(hashes[i], i) + 1);
+            }
+        }
+        return max;
+    }
+
+    /* Return the slot holding key, or -1 if there is none. */
+    private int find(K key) {
+        int h = hash(key);
+        int i = h & mask;
+        int dist = 0;
+        while (hashes[i] != EMPTY && probeDistance(hashes[i], i) >= dist) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                return i;
+            }
+            i = (i + 1) & mask;
+            dist++;
+        }
+        return -1;
+    }
+
+    /* Place a mapping known not to be present, displacing entries that are
+     * closer to their home slot than the one being placed. */
+    private void insert(int h, Object key, Object val) {
+        int i = h & mask;
+        int dist = 0;
+        while (hashes[i] != EMPTY) {
+            int d = probeDistance(hashes[i], i);
+            if (d < dist) {
+                int th = hashes[i];
+                Object tk = keys[i];
+                Object tv = values[i];
+                hashes[i] = h;
+                keys[i] = key;
+                values[i] = val;
+                h = th;
+                key = tk;
+                val = tv;
+                dist = d;
+            }
+            i = (i + 1) & mask;
+            dist++;
+        }
+        hashes[i] = h;
+        keys[i] = key;
+        values[i] = val;
+    }
+
+    /* Return how far slot i is from the home slot of hash h. */
+    private int probeDistance(int h, int i) {
+        return (i - (h & mask)) & mask;
+    }
+
+    /* Double the capacity and reinsert every mapping. */
+    private void grow() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /* Spread the key's hashCode so that the low bits used for the home slot
+     * depend on all of its bits, and mark it as used. */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) | Integer.MIN_VALUE;
+    }
+
+    /* Return the smallest power of two >= n (at least 2). */
+    private static int tableSizeFor(int n) {
+        int cap = 2;
+        while (cap < n) {
+            cap *= 2;
+        }
+        return cap;
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.NoSuchElementException;
+
+/** An AList that stores its elements in fixed-size blocks instead of one
+* array, so growing never copies an element. Blocks hold 2^blockShift
+* elements; element i is at blocks[i >> blockShift][i & blockMask]. Growing
+* allocates one new block, and at most doubles the spine of block pointers,
+* which is blockSize times smaller than the elements themselves. Appends
+* therefore take the same time however long the list is, and a growing list
+* never needs more than one block of memory beyond what it holds. */
+public class SegmentedAList<T> {
+
+  protected int size; // number of elements in the list
+  protected T[][] blocks; // the spine; blocks[0..blockCount-1] are allocated
+  protected int blockCount; // number of allocated blocks
+  protected final int blockShift; // log2 of the block size
+  protected final int blockMask; // block size - 1
+
+  public int size() {
+    return size;
+  }
+
+  protected int getCap() {
+    return blockCount << blockShift;
+  }
+
+  /** Creates a SegmentedAList with blocks of 1024 elements */
+  public SegmentedAList() {
+    this(10);
+  }
+
+  /** Creates a SegmentedAList with blocks of 2^blockShift elements.
+  * @throws IllegalArgumentException unless 0 <= blockShift <= 30 */
+  public SegmentedAList(int blockShift) {
+    if (blockShift < 0 || blockShift > 30) {
+      throw new IllegalArgumentException("bad block shift " + blockShift);
+    }
+    this.blockShift = blockShift;
+    blockMask = (1 << blockShift) - 1;
+    blocks = createSpine(4);
+    blockCount = 0;
+    size = 0;
+  }
+
+  /** Allocates blocks until newSize elements fit. Existing blocks are never
+  * moved. This does *not* change the list's size. */
+  protected void growIfNeeded(int newSize) {
+    while (newSize > getCap()) {
+      if (blockCount == blocks.length) {
+        T[][] spine = createSpine(2 * blocks.length);
+        System.arraycopy(blocks, 0, spine, 0, blockCount);
+        blocks = spine;
+      }
+      blocks[blockCount] = createArray(blockMask + 1);
+      blockCount++;
+    }
+  }
+
+  /** Resizes the list.
+  *  this *does* modify the size, and may modify the capacity if newsize
+  *  exceeds capacity. */
+  public void resize(int newSize) {
+    growIfNeeded(newSize);
+    size = newSize;
+  }
+
+  /** Gets element i from the list.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public T get(int i) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    return blocks[i >> blockShift][i & blockMask];
+  }
+
+  /** Sets the ith element of the list to value.
+  * @throws ArrayIndexOutOfBoundsException if 0 <= i < size does not hold */
+  public void put(int i, T value) {
+    if (0 > i || i >= size) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    blocks[i >> blockShift][i & blockMask] = value;
+  }
+
+  /** Appends value at the end of the list, increasing size by 1.
+  * Allocates a new block if the last one is full */
+  public void append(T value) {
+    if (size == getCap()) {
+      growIfNeeded(size + 1);
+    }
+    blocks[size >> blockShift][size & blockMask] = value;
+    size++;
+  }
+
+  /** Removes and returns the value at the end of the list.
+  *  this *does* modify size and cannot modify capacity.
+  *  @throws NoSuchElementException if size == 0*/
+  public T pop() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    size--;
+    T[] block = blocks[size >> blockShift];
+    T temp = block[size & blockMask];
+    block[size & blockMask] = null; // let the garbage collector have it
+    return temp;
+  }
+
+  /*  Create and return a T[] of size n. */
+  @SuppressWarnings("unchecked")
+  protected T[] createArray(int size) {
+    return (T[]) new Object[size];
+  }
+
+  /*  Create and return a spine with room for n blocks. */
+  @SuppressWarnings("unchecked")
+  protected T[][] createSpine(int n) {
+    return (T[][]) new Object[n][];
+  }
+
+}
@@ -0,0 +1,283 @@
+import java.util.Arrays;
+
+/** A hash table with the get/put/remove/containsKey/getSize contract of
+ * HashTable, laid out like a "Swiss table": open addressing over groups of
+ * GROUP slots, with a separate control byte per slot. A full slot's control
+ * byte holds 7 bits of its key's hash; EMPTY and DELETED are negative.
+ * Lookups scan a whole group's control bytes at once for the wanted 7-bit
+ * fragment, so most misses and all but about one in 128 unequal keys are
+ * rejected without touching the keys array.
+ *
+ * The hash picks a starting group (high bits) and a fragment (low 7 bits).
+ * Probing visits groups in triangular order until it finds the key or a
+ * group with an EMPTY slot. remove leaves a DELETED tombstone only if the
+ * slot's group has no EMPTY slot, since only then might a probe have gone
+ * past it. The table is rebuilt when EMPTY slots would drop below one in
+ * eight: at double the size if it is more than half full, otherwise at the
+ * same size, which clears the tombstones.
+ *
+ * Group scans use the Vector API (jdk.incubator.vector) when it is present
+ * and fall back to a plain loop otherwise. The vector code is in
+ * vector/VectorGroupMatcher.java, outside the default build, and is only
+ * loaded by reflection, so this class compiles and runs on any JVM. To use
+ * it, after compiling the other sources run
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/*.java
+ * and then run with --add-modules jdk.incubator.vector as well.
+ * Keys are compared with equals. */
+public class SwissHashTable<K,V> {
+
+    protected static final int GROUP = 16; // slots per group and per scan
+    private static final byte EMPTY = (byte) 0x80;
+    private static final byte DELETED = (byte) 0xFE;
+
+    /** Scans the GROUP control bytes starting at index i. Bit j of the
+     * result is set when control byte i + j matches. */
+    interface GroupMatcher {
+        /** Return the bits of the bytes equal to b. */
+        int match(byte[] ctrl, int i, byte b);
+
+        /** Return the bits of the EMPTY and DELETED bytes. */
+        int matchFree(byte[] ctrl, int i);
+    }
+
+    /** The fallback GroupMatcher: one byte at a time. */
+    private static final class ScalarGroupMatcher implements GroupMatcher {
+        public int match(byte[] ctrl, int i, byte b) {
+            int bits = 0;
+            for (int j = 0; j < GROUP; j++) {
+                if (ctrl[i + j] == b) {
+                    bits |= 1 << j;
+                }
+            }
+            return bits;
+        }
+
+        public int matchFree(byte[] ctrl, int i) {
+            int bits = 0;
+            for (int j = 0; j < GROUP; j++) {
+                if (ctrl[i + j] < 0) {
+                    bits |= 1 << j;
+                }
+            }
+            return bits;
+        }
+    }
+
+    private static final GroupMatcher SCALAR = new ScalarGroupMatcher();
+    private static final GroupMatcher VECTOR = loadVectorMatcher();
+
+    /**
+     * Class Invariants:
+     *   1. ctrl, keys and values have capacity = (groupMask + 1) * GROUP
+     *      entries.
+     *   2. ctrl[i] is EMPTY or DELETED iff keys[i] == null; otherwise it is
+     *      the low 7 bits of hash(keys[i]).
+     *   3. A key lies in the first group of its probe sequence that has a
+     *      free slot at insertion time, and every group before it in the
+     *      sequence has no EMPTY slot.
+     *   4. growthLeft is the number of EMPTY slots that may still be filled
+     *      before a rebuild: capacity - capacity / 8 minus the full and
+     *      DELETED slots.
+     */
+    private byte[] ctrl;
+    private Object[] keys;
+    private Object[] values;
+    private int groupMask;
+    private int size;
+    private int growthLeft;
+    private final GroupMatcher matcher;
+
+    /** constructor: initialize with one group of 16 slots */
+    public SwissHashTable() {
+        this(GROUP);
+    }
+
+    /** constructor: initialize with at least the given number of slots,
+     * scanning with the Vector API if it is available */
+    public SwissHashTable(int capacity) {
+        this(capacity, true);
+    }
+
+    /** constructor: initialize with at least the given number of slots,
+     * scanning with the Vector API only if useVector is true and it is
+     * available */
+    public SwissHashTable(int capacity, boolean useVector) {
+        matcher = useVector && VECTOR != null ? VECTOR : SCALAR;
+        int groups = 1;
+        while (groups * GROUP < capacity) {
+            groups *= 2;
+        }
+        allocate(groups);
+    }
+
+    /** Return true if this JVM can run the Vector API group scans */
+    public static boolean vectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /** Return true if this table scans groups with the Vector API */
+    public boolean isVectorized() {
+        return matcher != SCALAR;
+    }
+
+    /** Return the size of the map (the number of key-value mappings in the
+     * table) */
+    public int getSize() {
+        return size;
+    }
+
+    /** Return the current capacity of the table (the number of slots) */
+    public int getCapacity() {
+        return ctrl.length;
+    }
+
+    /** Return the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * Runtime: average case O(1) */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = find(key, hash(key));
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /** Return true if this map contains a mapping for the specified key.
+     *  Runtime: average case O(1) */
+    public boolean containsKey(K key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    /** Associate the specified value with the specified key in this map,
+     * returning the previous value or null if there was none.
+     * Precondition: val is not null.
+     * Runtime: average case O(1) */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V val) {
+        int h = hash(key);
+        int i = find(key, h);
+        if (i >= 0) {
+            V old = (V) values[i];
+            values[i] = val;
+            return old;
+        }
+        if (growthLeft == 0) {
+            int capacity = ctrl.length;
+            rebuild(size + 1 > (capacity - capacity / 8) / 2
+                    ? 2 * (groupMask + 1) : groupMask + 1);
+        }
+        i = findFree(h);
+        if (ctrl[i] == EMPTY) {
+            growthLeft--;
+        }
+        set(i, h, key, val);
+        size++;
+        return null;
+    }
+
+    /** Remove the mapping for the specified key from this map if present,
+     * returning its value or null if there was none.
+     * Runtime: average case O(1) */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = find(key, hash(key));
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        // probes stop at a group with an EMPTY slot, so none can have passed
+        // through this group and the slot may become EMPTY again
+        if (matcher.match(ctrl, i & -GROUP, EMPTY) != 0) {
+            ctrl[i] = EMPTY;
+            growthLeft++;
+        } else {
+            ctrl[i] = DELETED;
+        }
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    /* Return the slot of key (with hash h), or -1 if it is not present. */
+    private int find(Object key, int h) {
+        byte fragment = (byte) (h & 0x7F);
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            int base = g * GROUP;
+            int bits = matcher.match(ctrl, base, fragment);
+            while (bits != 0) {
+                int i = base + Integer.numberOfTrailingZeros(bits);
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+                bits &= bits - 1;
+            }
+            if (matcher.match(ctrl, base, EMPTY) != 0) {
+                return -1;
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    /* Return the first EMPTY or DELETED slot in h's probe sequence. One
+     * exists since growthLeft keeps an eighth of the slots EMPTY. */
+    private int findFree(int h) {
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            int bits = matcher.matchFree(ctrl, g * GROUP);
+            if (bits != 0) {
+                return g * GROUP + Integer.numberOfTrailingZeros(bits);
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    private void set(int i, int h, Object key, Object val) {
+        ctrl[i] = (byte) (h & 0x7F);
+        keys[i] = key;
+        values[i] = val;
+    }
+
+    /* Reinsert every mapping into a fresh table of the given number of
+     * groups, dropping all tombstones. */
+    private void rebuild(int groups) {
+        byte[] oldCtrl = ctrl;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(groups);
+        for (int i = 0; i < oldCtrl.length; i++) {
+            if (oldCtrl[i] >= 0) {
+                int h = hash(oldKeys[i]);
+                set(findFree(h), h, oldKeys[i], oldValues[i]);
+                growthLeft--;
+            }
+        }
+    }
+
+    private void allocate(int groups) {
+        int capacity = groups * GROUP;
+        ctrl = new byte[capacity];
+        Arrays.fill(ctrl, EMPTY);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        groupMask = groups - 1;
+        growthLeft = capacity - capacity / 8;
+    }
+
+    /* Mix the key's hashCode so that both the fragment and the group depend
+     * on all of its bits. */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Return a VectorGroupMatcher, or null if it or the Vector API cannot
+     * be loaded. */
+    private static GroupMatcher loadVectorMatcher() {
+        try {
+            return (GroupMatcher) Class.forName("VectorGroupMatcher")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
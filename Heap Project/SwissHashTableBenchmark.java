@@ -0,0 +1,130 @@
+import java.util.Random;
+
+/** Compares SwissHashTable, with and without the Vector API, against the
+ * chained HashTable. For each target load factor the tables start with the
+ * same capacity and are filled to that load, then timed on hits, misses and
+ * remove/re-put. The chained table grows past a load factor of 0.8 and the
+ * Swiss table past 0.875, so the achieved load is printed alongside.
+ * To include the vector scans, compile vector/VectorGroupMatcher.java as
+ * described in SwissHashTable and run with
+ * --add-modules jdk.incubator.vector; otherwise both Swiss rows use the
+ * scalar loop.
+ * Usage: java SwissHashTableBenchmark [log2 capacity] */
+public class SwissHashTableBenchmark {
+
+    public static void main(String[] args) {
+        int logCap = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int capacity = 1 << logCap;
+        double[] loads = {0.5, 0.7, 0.8, 0.85};
+
+        // random keys (evens) and misses (odds), boxed once up front since
+        // HashTable compares keys with ==
+        Random rnd = new Random(42);
+        Integer[] keys = new Integer[capacity];
+        Integer[] misses = new Integer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = rnd.nextInt() & ~1;
+            misses[i] = rnd.nextInt() | 1;
+        }
+        System.out.println("vector API available: "
+                + SwissHashTable.vectorAvailable());
+
+        for (double load : loads) {
+            int n = (int) (load * capacity);
+            // run each twice and report the second, warmed-up run
+            runChained(keys, misses, n, capacity);
+            runSwiss(keys, misses, n, capacity, false);
+            runSwiss(keys, misses, n, capacity, true);
+            String chained = runChained(keys, misses, n, capacity);
+            String scalar = runSwiss(keys, misses, n, capacity, false);
+            String vector = runSwiss(keys, misses, n, capacity, true);
+            System.out.println("load " + load + ":");
+            System.out.println("  chained      " + chained);
+            System.out.println("  swiss scalar " + scalar);
+            System.out.println("  swiss vector " + vector);
+        }
+    }
+
+    private static String runChained(Integer[] keys, Integer[] misses, int n,
+            int capacity) {
+        HashTable<Integer, Integer> t = new HashTable<Integer, Integer>(capacity);
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long put = System.nanoTime() - start;
+        double load = ((double) t.getSize()) / t.getCapacity();
+
+        start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+            if (t.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        long hit = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (t.containsKey(misses[i])) {
+                found++;
+            }
+        }
+        long miss = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.remove(keys[i]);
+            t.put(keys[i], i);
+        }
+        long churn = System.nanoTime() - start;
+        return report(load, n, put, hit, miss, churn, found);
+    }
+
+    private static String runSwiss(Integer[] keys, Integer[] misses, int n,
+            int capacity, boolean vector) {
+        SwissHashTable<Integer, Integer> t =
+            new SwissHashTable<Integer, Integer>(capacity, vector);
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.put(keys[i], i);
+        }
+        long put = System.nanoTime() - start;
+        double load = ((double) t.getSize()) / t.getCapacity();
+
+        start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+            if (t.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        long hit = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (t.containsKey(misses[i])) {
+                found++;
+            }
+        }
+        long miss = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            t.remove(keys[i]);
+            t.put(keys[i], i);
+        }
+        long churn = System.nanoTime() - start;
+        return report(load, n, put, hit, miss, churn, found)
+            + (t.isVectorized() ? " (vector)" : " (scalar)");
+    }
+
+    // per-operation times in nanoseconds
+    private static String report(double load, int n, long put, long hit,
+            long miss, long churn, long found) {
+        return String.format("(load %.2f, %d found) put %.1f  hit %.1f  "
+                + "miss %.1f  remove+put %.1f ns/op", load, found,
+                ((double) put) / n, ((double) hit) / n, ((double) miss) / n,
+                ((double) churn) / n);
+    }
+}
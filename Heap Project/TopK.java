@@ -0,0 +1,73 @@
+/** Collects the k values with the smallest priorities from a stream of
+ *  (value, priority) pairs of any length, using O(k) memory and O(log k)
+ *  time per value offered. The k best values seen so far are kept in a
+ *  max-heap, so the worst of them sits at the root and can be evicted in
+ *  O(log k) when something better arrives.
+ *  Sample usage:
+ *    TopK<String, Double> top = new TopK<String, Double>(10);
+ *    for (...) top.offer(name, score);
+ *    AList<String> best = top.toSortedList(); */
+public class TopK<V, P extends Comparable<P>> {
+
+    private final int k;
+    private Heap<V, P> heap; // max-heap of the k best values seen so far
+
+    /** Constructor: an empty collector that keeps the k smallest.
+     *  @throws IllegalArgumentException if k is less than 1. */
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        heap = new Heap<V, P>(true);
+    }
+
+    /** Return the number of values currently kept (at most k). */
+    public int size() {
+        return heap.size();
+    }
+
+    /** Offer v with priority p. v is kept if fewer than k values are held or
+     *  p is smaller than the largest priority held, in which case the value
+     *  with that largest priority is dropped. If v is already held, its
+     *  priority becomes the smaller of the two.
+     *  Return true if v is held after the call. */
+    public boolean offer(V v, P p) {
+        if (heap.contains(v)) {
+            heap.changePriority(v, min(heap.getPriority(v), p));
+            return true;
+        }
+        if (heap.size() < k) {
+            heap.add(v, p);
+            return true;
+        }
+        if (p.compareTo(heap.peekPriority()) >= 0) {
+            return false;
+        }
+        heap.poll();
+        heap.add(v, p);
+        return true;
+    }
+
+    /** Return the largest priority held, which a new value must beat to be
+     *  kept once k values are held.
+     *  @throws java.util.NoSuchElementException if nothing has been kept. */
+    public P threshold() {
+        return heap.peekPriority();
+    }
+
+    /** Remove every held value and return them in ascending priority order.
+     *  The collector is empty afterwards. O(k log k) time. */
+    public AList<V> toSortedList() {
+        AList<V> result = new AList<V>(Math.max(heap.size(), 1));
+        result.resize(heap.size());
+        for (int i = heap.size() - 1; i >= 0; i--) {
+            result.put(i, heap.poll());
+        }
+        return result;
+    }
+
+    private P min(P a, P b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,30 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/** SwissHashTable's group scans written with the Vector API: one 128-bit
+ * compare covers a whole group of 16 control bytes. SwissHashTable loads
+ * this class by reflection only. It lives apart from the other sources so
+ * that a plain javac *.java builds without the incubator module; compile it
+ * on its own, into the same output directory, with
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/*.java
+ * and run with --add-modules jdk.incubator.vector. Without it the table
+ * uses its scalar loop instead. */
+final class VectorGroupMatcher implements SwissHashTable.GroupMatcher {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+
+    static {
+        if (SPECIES.length() != SwissHashTable.GROUP) {
+            throw new ExceptionInInitializerError("group size mismatch");
+        }
+    }
+
+    public int match(byte[] ctrl, int i, byte b) {
+        return (int) ByteVector.fromArray(SPECIES, ctrl, i).eq(b).toLong();
+    }
+
+    public int matchFree(byte[] ctrl, int i) {
+        return (int) ByteVector.fromArray(SPECIES, ctrl, i)
+            .lt((byte) 0).toLong();
+    }
+}